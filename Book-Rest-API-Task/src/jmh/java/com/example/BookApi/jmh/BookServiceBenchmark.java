@@ -0,0 +1,118 @@
+package com.example.BookApi.jmh;
+
+import com.example.BookApi.BookApiApplication;
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookFilter;
+import com.example.BookApi.classes.BookImportResult;
+import com.example.BookApi.classes.BookLookupResult;
+import com.example.BookApi.classes.BookPage;
+import com.example.BookApi.services.BookCache;
+import com.example.BookApi.services.BookImportService;
+import com.example.BookApi.services.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * BookService against the embedded H2 database from the test resources, seeded with 10k books
+ * through the batch import. Runs the full Spring context without the web server, and without Hibernate's
+ * second-level and query cache so the database benchmarks reach the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+    private static final int ROWS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BookCache bookCache;
+    private List<Long> ids;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=warn", "books.second-level-cache.enabled=false")
+                .run();
+        bookService = context.getBean(BookService.class);
+        bookCache = context.getBean(BookCache.class);
+        List<BookImportResult> results = context.getBean(BookImportService.class).importBooks(IntStream.rangeClosed(1, ROWS)
+                .mapToObj(i -> new Book(null, "Title " + i, "Author " + i % 500, i % 1_000 / 10.0, 1900 + i % 125))
+                .iterator());
+        ids = results.stream().map(BookImportResult::getId).toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private Long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    @Benchmark
+    public Optional<Book> getBookByIdCached() {
+        return bookService.getBookById(randomId());
+    }
+
+    @Benchmark
+    public Optional<Book> getBookByIdFromDatabase() {
+        Long id = randomId();
+        bookCache.evict(id);
+        return bookService.getBookById(id);
+    }
+
+    @Benchmark
+    public BookLookupResult getBooksByIds() {
+        List<Long> lookup = new ArrayList<>(100);
+        for (int i = 0; i < 100; i++) {
+            lookup.add(randomId());
+        }
+        return bookService.getBooksByIds(lookup);
+    }
+
+    @Benchmark
+    public BookPage getBooksPage() {
+        return bookService.getBooksPage(new BookFilter(), String.valueOf(randomId()), 20);
+    }
+
+    @Benchmark
+    public BookPage getBooksPageFilteredByPrice() {
+        double minPrice = ThreadLocalRandom.current().nextInt(90);
+        return bookService.getBooksPage(new BookFilter(minPrice, minPrice + 10, null, null, "price"), null, 20);
+    }
+
+    @Benchmark
+    public List<Book> getAllBooks() {
+        return bookService.getAllBooks();
+    }
+
+    @Benchmark
+    public void streamBooks(Blackhole blackhole) {
+        bookService.streamBooks(new BookFilter(), blackhole::consume);
+    }
+
+    @Benchmark
+    public List<Book> searchBooks() {
+        return bookService.searchBooks("author " + ThreadLocalRandom.current().nextInt(500), 20);
+    }
+
+    @Benchmark
+    public Book addBook() {
+        return bookService.addBook(new Book(null, "Benchmark", "Author", 10.0, 2000));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.BookApi.jmh;
+
+import com.example.BookApi.classes.Book;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encode time of a 10k-book GET /books response per format, written element by element through a generator
+ * the way BookController streams it, with and without gzip. The encoded size is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    @Param({"none", "gzip"})
+    String compression;
+
+    private ObjectMapper mapper;
+    private List<Book> books;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+        mapper = switch (format) {
+            case "cbor" -> json.copyWith(new CBORFactory());
+            case "smile" -> json.copyWith(new SmileFactory());
+            default -> json;
+        };
+        books = new ArrayList<>(10_000);
+        for (int i = 1; i <= 10_000; i++) {
+            books.add(new Book((long) i, "Title " + i, "Author " + i % 50, i % 1_000 / 10.0, 1900 + i % 125));
+        }
+        System.out.printf("%n%s, %s: %,d bytes%n", format, compression, encode().size());
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream encodeBookList() throws IOException {
+        return encode();
+    }
+
+    private ByteArrayOutputStream encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 20);
+        OutputStream out = compression.equals("gzip") ? new GZIPOutputStream(bytes, 8192) : bytes;
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            generator.setCodec(mapper);
+            generator.writeStartArray();
+            for (Book book : books) {
+                generator.writeObject(book);
+            }
+            generator.writeEndArray();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.BookApi.jmh;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.controllers.BookController;
+import com.example.BookApi.exceptionHandler.AddBookCustomErrorResponse;
+import com.example.BookApi.exceptionHandler.BookNotFoundException;
+import com.example.BookApi.exceptionHandler.BookPreconditionFailedException;
+import com.example.BookApi.exceptionHandler.ErrorResponse;
+import com.example.BookApi.exceptionHandler.GlobalExceptionHandler;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning exceptions into error responses, including creating the exception itself,
+ * since a filled-in stack trace is usually the expensive part.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionHandlerBenchmark {
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    private MethodParameter addBookParameter;
+    private ConstraintViolationException constraintViolations;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        addBookParameter = new MethodParameter(BookController.class.getMethod("addBook", Book.class), 0);
+        try (ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory()) {
+            constraintViolations = new ConstraintViolationException(validatorFactory.getValidator().validate(new Book()));
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> bookNotFound() {
+        return handler.handleBookNotFoundException(new BookNotFoundException(42L));
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> preconditionFailed() {
+        return handler.handlePreconditionFailedException(new BookPreconditionFailedException(42L));
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> illegalArgument() {
+        return handler.handleIllegalArgumentException(new IllegalArgumentException("Page limit must be between 1 and 1000"));
+    }
+
+    @Benchmark
+    public ResponseEntity<AddBookCustomErrorResponse> methodArgumentNotValid() {
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(new Book(), "book");
+        bindingResult.rejectValue("title", "NotBlank", "Title is required");
+        bindingResult.rejectValue("author", "NotBlank", "Author is required");
+        bindingResult.rejectValue("bookPrice", "NotNull", "Price is required");
+        bindingResult.rejectValue("yearPublished", "NotNull", "Year of publication is required");
+        return handler.handleValidationExceptions(new MethodArgumentNotValidException(addBookParameter, bindingResult));
+    }
+
+    @Benchmark
+    public ResponseEntity<AddBookCustomErrorResponse> constraintViolation() {
+        return handler.handleConstraintViolationException(constraintViolations);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.BookApi.jmh;
+
+import com.example.BookApi.classes.Book;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of the request and response bodies, using an ObjectMapper configured the way Spring Boot builds it.
+ * Single books are measured once, lists at 1, 100 and 10k items.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+    private static final TypeReference<List<Book>> BOOK_LIST = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private Book book;
+    private byte[] bookJson;
+
+    @State(Scope.Benchmark)
+    public static class Books {
+        @Param({"1", "100", "10000"})
+        int size;
+
+        List<Book> books;
+        byte[] json;
+
+        @Setup
+        public void setUp(JsonBenchmark benchmark) throws IOException {
+            books = new ArrayList<>(size);
+            for (int i = 1; i <= size; i++) {
+                books.add(new Book((long) i, "Title " + i, "Author " + i % 50, i % 1_000 / 10.0, 1900 + i % 125));
+            }
+            json = benchmark.objectMapper.writeValueAsBytes(books);
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        book = new Book(1L, "Introduction to Algorithms", "Thomas H. Cormen", 89.99, 1990);
+        bookJson = objectMapper.writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public byte[] serializeBook() throws IOException {
+        return objectMapper.writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public Book deserializeBook() throws IOException {
+        return objectMapper.readValue(bookJson, Book.class);
+    }
+
+    @Benchmark
+    public byte[] serializeBookList(Books books) throws IOException {
+        return objectMapper.writeValueAsBytes(books.books);
+    }
+
+    @Benchmark
+    public List<Book> deserializeBookList(Books books) throws IOException {
+        return objectMapper.readValue(books.json, BOOK_LIST);
+    }
+}
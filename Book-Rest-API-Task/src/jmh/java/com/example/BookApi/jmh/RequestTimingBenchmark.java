@@ -0,0 +1,60 @@
+package com.example.BookApi.jmh;
+
+import com.example.BookApi.config.RequestTiming;
+import com.example.BookApi.config.RequestTiming.Stage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// What the Server-Timing instrumentation adds to a request: the stage switches of a POST that goes through
+// validation, controller, service and repository, one advised call on its own, and formatting the header
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestTimingBenchmark {
+    private RequestTiming timing;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        timing = RequestTiming.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        RequestTiming.clear();
+    }
+
+    @Benchmark
+    public String request() {
+        RequestTiming request = RequestTiming.start();
+        request.switchTo(Stage.DISPATCH);
+        RequestTiming.current().enter(Stage.VALIDATION);
+        RequestTiming.current().exit();
+        RequestTiming.current().enter(Stage.CONTROLLER);
+        RequestTiming.current().enter(Stage.SERVICE);
+        RequestTiming.current().enter(Stage.REPOSITORY);
+        RequestTiming.current().exit();
+        RequestTiming.current().exit();
+        RequestTiming.current().exit();
+        request.switchTo(Stage.SERIALIZATION);
+        String header = request.serverTiming();
+        request.stop();
+        RequestTiming.clear();
+        return header;
+    }
+
+    @Benchmark
+    public void advisedCall() {
+        RequestTiming current = RequestTiming.current();
+        current.enter(Stage.SERVICE);
+        current.exit();
+    }
+
+    @Benchmark
+    public String serverTiming() {
+        return timing.serverTiming();
+    }
+}
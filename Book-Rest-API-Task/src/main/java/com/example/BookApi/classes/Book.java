@@ -1,17 +1,43 @@
 package com.example.BookApi.classes;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+
+// Composite indexes serve range filters and keyset pages sorted by price or year.
+// Updates only write the columns that actually changed.
+// Rows are kept in the second-level cache, sized in SecondLevelCacheConfig.
 @Entity
+@DynamicUpdate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.CACHE_REGION)
+@Table(indexes = {
+        @Index(name = "idx_book_price_id", columnList = "bookPrice, id"),
+        @Index(name = "idx_book_year_id", columnList = "yearPublished, id")
+})
 public class Book {
 
+    public static final String CACHE_REGION = "book";
+    // IDs the book_seq generator reserves per database round trip
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts (see BookImportService).
+    // The Spring Data @Id marks the key for the reactive repository, which ignores JPA annotations
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @org.springframework.data.annotation.Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank(message = "Title is required")
@@ -26,6 +52,10 @@ public class Book {
     @NotNull(message = "Year of publication is required")
     private Integer yearPublished;
 
+    // Exposed to clients only as the ETag, the default fills the column for rows created before it existed
+    @Version
+    @ColumnDefault("0")
+    private Long version;
 
     public Book() {
     }
@@ -78,6 +108,15 @@ public class Book {
         this.yearPublished = yearPublished;
     }
 
+    @JsonIgnore
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Book{" +
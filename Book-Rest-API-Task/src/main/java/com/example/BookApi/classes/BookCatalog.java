@@ -0,0 +1,20 @@
+package com.example.BookApi.classes;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// The single row holding the catalog version, read and bumped with plain SQL by BookCatalogVersion.
+// Mapped only so ddl-auto creates the table
+@Entity
+@Table(name = "book_catalog")
+public class BookCatalog {
+
+    @Id
+    private Integer id;
+
+    private Long version;
+
+    protected BookCatalog() {
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.BookApi.classes;
+
+// One committed change to the catalog, as published on GET /books/changes
+public class BookChangeEvent {
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private String epoch;
+    private long sequence;
+    private Type type;
+    private Long id;
+    private Book book;
+
+    public BookChangeEvent(String epoch, long sequence, Type type, Long id, Book book) {
+        this.epoch = epoch;
+        this.sequence = sequence;
+        this.type = type;
+        this.id = id;
+        this.book = book;
+    }
+
+    // Tags the process that published the event, sequences restart with it
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(String epoch) {
+        this.epoch = epoch;
+    }
+
+    // Increases by one with every change
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    // Clients resume after the last event ID they saw
+    public String getEventId() {
+        return epoch + "-" + sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    // The book as committed, null for deletions
+    public Book getBook() {
+        return book;
+    }
+
+    public void setBook(Book book) {
+        this.book = book;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.BookApi.classes;
+
+import java.util.Map;
+
+/**
+ * Position a sorted page listing resumes from: the sort value and ID of the last book served. Pages are read
+ * straight from these values, so the next page is right even once that book has been changed or deleted.
+ * Written as "sortValue_id" for price and year sorts and as the plain ID when sorted by it.
+ */
+public final class BookCursor {
+    private final Object sortValue;
+    private final long id;
+
+    private BookCursor(Object sortValue, long id) {
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    public static BookCursor of(BookFilter filter, Book book) {
+        Object sortValue = switch (filter.getSortProperty()) {
+            case "bookPrice" -> book.getBookPrice();
+            case "yearPublished" -> book.getYearPublished();
+            default -> null;
+        };
+        return new BookCursor(sortValue, book.getId());
+    }
+
+    // Rows must hold the ID and the sort column, see BookFields.getColumns
+    public static BookCursor of(BookFilter filter, Map<String, Object> row) {
+        String property = filter.getSortProperty();
+        return new BookCursor("id".equals(property) ? null : row.get(property), (Long) row.get("id"));
+    }
+
+    public static BookCursor parse(BookFilter filter, String cursor) {
+        String property = filter.getSortProperty();
+        try {
+            if ("id".equals(property))
+                return new BookCursor(null, Long.parseLong(cursor));
+            int separator = cursor.lastIndexOf('_');
+            if (separator > 0) {
+                String value = cursor.substring(0, separator);
+                return new BookCursor("bookPrice".equals(property) ? Double.valueOf(value) : Integer.valueOf(value),
+                        Long.parseLong(cursor.substring(separator + 1)));
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid cursor " + cursor + " for sort " + filter.getSort());
+    }
+
+    // Null when sorted by ID
+    public Object getSortValue() {
+        return sortValue;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return sortValue == null ? Long.toString(id) : sortValue + "_" + id;
+    }
+}
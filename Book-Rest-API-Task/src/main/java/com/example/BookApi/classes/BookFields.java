@@ -0,0 +1,71 @@
+package com.example.BookApi.classes;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Book properties picked with ?fields=, in the order they were asked for
+public class BookFields {
+    private static final List<String> PROPERTIES = List.of("id", "title", "author", "bookPrice", "yearPublished");
+
+    private final List<String> names;
+
+    private BookFields(List<String> names) {
+        this.names = names;
+    }
+
+    public static BookFields parse(String fields) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty())
+                continue;
+            if (!PROPERTIES.contains(name))
+                throw new IllegalArgumentException("Unsupported field " + name);
+            names.add(name);
+        }
+        if (names.isEmpty())
+            throw new IllegalArgumentException("No fields selected");
+        return new BookFields(List.copyOf(names));
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    // Columns to select, the ID and sort columns are always among them since pages resume after their values
+    public List<String> getColumns(Sort sort) {
+        Set<String> columns = new LinkedHashSet<>(names);
+        columns.add("id");
+        sort.forEach(order -> columns.add(order.getProperty()));
+        return List.copyOf(columns);
+    }
+
+    public Map<String, Object> project(Book book) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String name : names) {
+            row.put(name, switch (name) {
+                case "id" -> book.getId();
+                case "title" -> book.getTitle();
+                case "author" -> book.getAuthor();
+                case "bookPrice" -> book.getBookPrice();
+                default -> book.getYearPublished();
+            });
+        }
+        return row;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof BookFields other && names.equals(other.names);
+    }
+
+    @Override
+    public int hashCode() {
+        return names.hashCode();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.BookApi.classes;
+
+import java.util.List;
+import java.util.Map;
+
+// A BookLookupResult holding only the fields asked for with ?fields=
+public class BookFieldsLookupResult {
+    private List<Map<String, Object>> books;
+    private List<Long> missingIds;
+
+    public BookFieldsLookupResult(List<Map<String, Object>> books, List<Long> missingIds) {
+        this.books = books;
+        this.missingIds = missingIds;
+    }
+
+    public List<Map<String, Object>> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<Map<String, Object>> books) {
+        this.books = books;
+    }
+
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+
+    public void setMissingIds(List<Long> missingIds) {
+        this.missingIds = missingIds;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.BookApi.classes;
+
+import java.util.List;
+import java.util.Map;
+
+// A BookPage holding only the fields asked for with ?fields=
+public class BookFieldsPage {
+    private List<Map<String, Object>> books;
+    private String nextCursor;
+
+    public BookFieldsPage(List<Map<String, Object>> books, String nextCursor) {
+        this.books = books;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Map<String, Object>> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<Map<String, Object>> books) {
+        this.books = books;
+    }
+
+    // BookCursor to pass as "after" for the next page, null once the last page has been served
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.BookApi.classes;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Objects;
+
+// Optional range filters and sort order for listing books, bound from query parameters
+public class BookFilter {
+    private Double minPrice;
+    private Double maxPrice;
+    private Integer fromYear;
+    private Integer toYear;
+    private String sort = "id";
+
+    public BookFilter() {
+    }
+
+    public BookFilter(Double minPrice, Double maxPrice, Integer fromYear, Integer toYear, String sort) {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.fromYear = fromYear;
+        this.toYear = toYear;
+        this.sort = sort;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public Integer getFromYear() {
+        return fromYear;
+    }
+
+    public void setFromYear(Integer fromYear) {
+        this.fromYear = fromYear;
+    }
+
+    public Integer getToYear() {
+        return toYear;
+    }
+
+    public void setToYear(Integer toYear) {
+        this.toYear = toYear;
+    }
+
+    // One of id, price or year, prefixed with "-" for descending order
+    public String getSort() {
+        return sort;
+    }
+
+    public void setSort(String sort) {
+        this.sort = sort;
+    }
+
+    public boolean hasRanges() {
+        return minPrice != null || maxPrice != null || fromYear != null || toYear != null;
+    }
+
+    public boolean isDefault() {
+        return !hasRanges() && "id".equals(getSortProperty()) && getSortDirection() == Sort.Direction.ASC;
+    }
+
+    public String getSortProperty() {
+        String property = sort == null || sort.isBlank() ? "id" : sort.startsWith("-") ? sort.substring(1) : sort;
+        return switch (property) {
+            case "id" -> "id";
+            case "price" -> "bookPrice";
+            case "year" -> "yearPublished";
+            default -> throw new IllegalArgumentException("Unsupported sort " + sort);
+        };
+    }
+
+    public Sort.Direction getSortDirection() {
+        return sort != null && sort.startsWith("-") ? Sort.Direction.DESC : Sort.Direction.ASC;
+    }
+
+    public Sort toSort() {
+        Sort sortOrder = Sort.by(getSortDirection(), getSortProperty());
+        // ID breaks ties so keyset pagination has a unique position to resume from
+        return "id".equals(getSortProperty()) ? sortOrder : sortOrder.and(Sort.by(Sort.Direction.ASC, "id"));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof BookFilter other))
+            return false;
+        return Objects.equals(minPrice, other.minPrice) && Objects.equals(maxPrice, other.maxPrice)
+                && Objects.equals(fromYear, other.fromYear) && Objects.equals(toYear, other.toYear)
+                && Objects.equals(sort, other.sort);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minPrice, maxPrice, fromYear, toYear, sort);
+    }
+}
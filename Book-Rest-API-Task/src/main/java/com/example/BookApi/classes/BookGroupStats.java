@@ -0,0 +1,58 @@
+package com.example.BookApi.classes;
+
+public class BookGroupStats {
+    // The author or the publication year
+    private Object group;
+    private long count;
+    private double averagePrice;
+    private double minPrice;
+    private double maxPrice;
+
+    public BookGroupStats(Object group, long count, double averagePrice, double minPrice, double maxPrice) {
+        this.group = group;
+        this.count = count;
+        this.averagePrice = averagePrice;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    public Object getGroup() {
+        return group;
+    }
+
+    public void setGroup(Object group) {
+        this.group = group;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getAveragePrice() {
+        return averagePrice;
+    }
+
+    public void setAveragePrice(double averagePrice) {
+        this.averagePrice = averagePrice;
+    }
+
+    public double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.BookApi.classes;
+
+import java.util.List;
+
+public class BookImportResult {
+    public enum Status { CREATED, INVALID, FAILED }
+
+    private int index;
+    private Status status;
+    private Long id;
+    private List<String> messages;
+
+    public BookImportResult(int index, Status status, Long id, List<String> messages) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.messages = messages;
+    }
+
+    public static BookImportResult created(int index, Long id) {
+        return new BookImportResult(index, Status.CREATED, id, List.of());
+    }
+
+    public static BookImportResult invalid(int index, List<String> messages) {
+        return new BookImportResult(index, Status.INVALID, null, messages);
+    }
+
+    public static BookImportResult failed(int index, String message) {
+        return new BookImportResult(index, Status.FAILED, null, List.of(message));
+    }
+
+    // Position of the record in the request body
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public List<String> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<String> messages) {
+        this.messages = messages;
+    }
+}
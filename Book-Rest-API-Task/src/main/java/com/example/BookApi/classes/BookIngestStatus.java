@@ -0,0 +1,65 @@
+package com.example.BookApi.classes;
+
+import java.util.List;
+
+public class BookIngestStatus {
+    public enum Status { QUEUED, CREATED, INVALID, FAILED }
+
+    private String trackingId;
+    private Status status;
+    private Long id;
+    private List<String> messages;
+
+    public BookIngestStatus(String trackingId, Status status, Long id, List<String> messages) {
+        this.trackingId = trackingId;
+        this.status = status;
+        this.id = id;
+        this.messages = messages;
+    }
+
+    public static BookIngestStatus queued(String trackingId) {
+        return new BookIngestStatus(trackingId, Status.QUEUED, null, List.of());
+    }
+
+    public static BookIngestStatus failed(String trackingId, String message) {
+        return new BookIngestStatus(trackingId, Status.FAILED, null, List.of(message));
+    }
+
+    // Outcome of the book once its batch has been written
+    public static BookIngestStatus of(String trackingId, BookImportResult result) {
+        return new BookIngestStatus(trackingId, Status.valueOf(result.getStatus().name()), result.getId(), result.getMessages());
+    }
+
+    public String getTrackingId() {
+        return trackingId;
+    }
+
+    public void setTrackingId(String trackingId) {
+        this.trackingId = trackingId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    // ID of the created book, null until then
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public List<String> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<String> messages) {
+        this.messages = messages;
+    }
+}
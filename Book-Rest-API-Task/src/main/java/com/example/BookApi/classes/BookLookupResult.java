@@ -0,0 +1,30 @@
+package com.example.BookApi.classes;
+
+import java.util.List;
+
+public class BookLookupResult {
+    private List<Book> books;
+    private List<Long> missingIds;
+
+    public BookLookupResult(List<Book> books, List<Long> missingIds) {
+        this.books = books;
+        this.missingIds = missingIds;
+    }
+
+    // Found books, in the order their IDs were requested
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<Book> books) {
+        this.books = books;
+    }
+
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+
+    public void setMissingIds(List<Long> missingIds) {
+        this.missingIds = missingIds;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.BookApi.classes;
+
+import java.util.List;
+
+public class BookPage {
+    private List<Book> books;
+    private String nextCursor;
+
+    public BookPage(List<Book> books, String nextCursor) {
+        this.books = books;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<Book> books) {
+        this.books = books;
+    }
+
+    // BookCursor to pass as "after" for the next page, null once the last page has been served
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.BookApi.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gradient-style concurrency limit. The average latency of each sample window is compared with a slowly moving
+ * baseline: while they match, the limit grows by about its square root, and as latency climbs past the baseline
+ * the limit shrinks in proportion. In-flight requests then stay near the point where the database saturates,
+ * instead of queueing until every caller waits seconds.
+ * Writes may fill the whole limit, bulk list reads only bulkShare of it, so they're shed first.
+ */
+public class AdaptiveConcurrencyLimit implements MeterBinder {
+    public enum Priority { WRITE, READ, BULK_READ }
+
+    // Latency may rise this far above the baseline before the limit starts shrinking
+    private static final double TOLERANCE = 1.5;
+    // How far each window moves the limit and the baseline towards their new values
+    private static final double SMOOTHING = 0.2;
+    private static final double BASELINE_SMOOTHING = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double bulkShare;
+    private final int windowSamples;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Priority, LongAdder> rejected = new EnumMap<>(Priority.class);
+    private volatile double limit;
+
+    // Guarded by this
+    private long windowRttSum;
+    private int windowCount;
+    private int windowMaxInFlight;
+    private double baselineRtt;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double bulkShare, int windowSamples) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.bulkShare = bulkShare;
+        this.windowSamples = windowSamples;
+        for (Priority priority : Priority.values()) {
+            rejected.put(priority, new LongAdder());
+        }
+    }
+
+    public boolean tryAcquire(Priority priority) {
+        int allowed = allowed(priority);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                rejected.get(priority).increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    // Frees the slot and feeds the latency into the limit, pass -1 for requests that shouldn't be sampled
+    public void release(long rttNanos) {
+        int current = inFlight.getAndDecrement();
+        if (rttNanos >= 0)
+            sample(rttNanos, current);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected(Priority priority) {
+        return rejected.get(priority).sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("books.concurrency.limit", this, AdaptiveConcurrencyLimit::getLimit)
+                .description("Requests currently allowed in flight")
+                .register(registry);
+        Gauge.builder("books.concurrency.in-flight", this, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Requests currently in flight")
+                .register(registry);
+        for (Priority priority : Priority.values()) {
+            FunctionCounter.builder("books.concurrency.rejected", this, limiter -> limiter.getRejected(priority))
+                    .description("Requests shed with 503 because the limit was reached")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+
+    private int allowed(Priority priority) {
+        int current = (int) limit;
+        return priority == Priority.BULK_READ ? Math.max(1, (int) (current * bulkShare)) : current;
+    }
+
+    private synchronized void sample(long rttNanos, int inFlightAtRelease) {
+        windowRttSum += rttNanos;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtRelease);
+        if (++windowCount < windowSamples)
+            return;
+        double windowRtt = (double) windowRttSum / windowCount;
+        int maxInFlight = windowMaxInFlight;
+        windowRttSum = 0;
+        windowCount = 0;
+        windowMaxInFlight = 0;
+
+        baselineRtt = baselineRtt == 0 ? windowRtt : baselineRtt * (1 - BASELINE_SMOOTHING) + windowRtt * BASELINE_SMOOTHING;
+        // A baseline far above current latency is left over from an earlier overload, let it recover faster
+        if (baselineRtt > 2 * windowRtt)
+            baselineRtt *= 0.9;
+        double current = limit;
+        // Latency measured well below the limit says nothing about how much more the service can take
+        if (maxInFlight < current / 2)
+            return;
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * baselineRtt / windowRtt));
+        double target = current * gradient + Math.sqrt(current);
+        limit = Math.max(minLimit, Math.min(maxLimit, current * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+}
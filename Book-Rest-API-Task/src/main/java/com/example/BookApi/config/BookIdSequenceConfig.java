@@ -0,0 +1,39 @@
+package com.example.BookApi.config;
+
+import com.example.BookApi.classes.Book;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Keeps the book_seq table ahead of the existing book IDs. On MySQL Hibernate backs the pooled book_seq generator
+ * with a table, which ddl-auto=update creates at 1 on a database from before the sequence, so the first insert would
+ * reuse an ID. A fetched value v reserves the IDs (v - allocation size, v], so right after the schema update, before
+ * the EntityManagerFactory hands out any ID, next_val is raised to max(id) + allocation size if it is below that.
+ * Databases with real sequences are left alone.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+public class BookIdSequenceConfig {
+
+    @Bean
+    HibernatePropertiesCustomizer bookIdSequenceSeed() {
+        return properties -> properties.put(AvailableSettings.SESSION_FACTORY_OBSERVER, new SessionFactoryObserver() {
+            @Override
+            public void sessionFactoryCreated(SessionFactory factory) {
+                if (((SessionFactoryImplementor) factory).getJdbcServices().getDialect().getSequenceSupport().supportsSequences())
+                    return;
+                factory.inTransaction(session -> session.createNativeMutationQuery(
+                                "update book_seq set next_val = (select max(id) from book) + :allocation"
+                                        + " where next_val < (select max(id) from book) + :allocation")
+                        .setParameter("allocation", Book.ID_ALLOCATION_SIZE)
+                        .executeUpdate());
+            }
+        });
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.BookApi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+/**
+ * Load shedding in front of BookController. Only /books is limited, so health checks and metrics
+ * scrapes keep answering while the API sheds load.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty(name = "books.limiter.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    AdaptiveConcurrencyLimit adaptiveConcurrencyLimit(@Value("${books.limiter.initial-limit:20}") int initialLimit,
+                                                      @Value("${books.limiter.min-limit:4}") int minLimit,
+                                                      @Value("${books.limiter.max-limit:200}") int maxLimit,
+                                                      @Value("${books.limiter.bulk-share:0.5}") double bulkShare,
+                                                      @Value("${books.limiter.window-samples:50}") int windowSamples) {
+        return new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, bulkShare, windowSamples);
+    }
+
+    @Bean
+    FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(AdaptiveConcurrencyLimit limit, ObjectMapper objectMapper) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(limit, objectMapper));
+        registration.addUrlPatterns("/books", "/books/*");
+        // Right after the request observation starts, so shed requests still show up in http.server.requests
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
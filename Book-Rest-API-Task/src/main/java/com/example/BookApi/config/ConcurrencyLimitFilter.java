@@ -0,0 +1,102 @@
+package com.example.BookApi.config;
+
+import com.example.BookApi.config.AdaptiveConcurrencyLimit.Priority;
+import com.example.BookApi.exceptionHandler.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admits /books requests while the adaptive limit has room and sheds the rest right away with 503,
+ * so a spike costs the rejected callers a retry instead of costing every caller seconds of queueing.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    // List, search and multi-ID reads, the first to go when the limit is tight
+    private static final Set<String> BULK_PATHS = Set.of("/books", "/books/search", "/books/lookup");
+
+    private final AdaptiveConcurrencyLimit limit;
+    private final ObjectMapper objectMapper;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimit limit, ObjectMapper objectMapper) {
+        this.limit = limit;
+        this.objectMapper = objectMapper;
+    }
+
+    // The change feed stays open for as long as clients follow it, it would hold its slot indefinitely
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length()).equals("/books/changes");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!limit.tryAcquire(priority(request))) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                    new ErrorResponse("Server is busy, try again later", HttpStatus.SERVICE_UNAVAILABLE.value()));
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Streamed responses hold their slot until done, but their duration isn't a latency sample
+                request.getAsyncContext().addListener(new ReleasingListener());
+            } else {
+                limit.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    static Priority priority(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (BULK_PATHS.contains(path) && (READ_METHODS.contains(request.getMethod()) || path.equals("/books/lookup")))
+            return Priority.BULK_READ;
+        return READ_METHODS.contains(request.getMethod()) ? Priority.READ : Priority.WRITE;
+    }
+
+    private class ReleasingListener implements AsyncListener {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true))
+                limit.release(-1);
+        }
+    }
+}
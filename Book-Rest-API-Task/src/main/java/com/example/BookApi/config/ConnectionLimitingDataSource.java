@@ -0,0 +1,135 @@
+package com.example.BookApi.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the number of connections handed out at once and queues the rest in arrival order.
+ * With virtual threads thousands of requests can reach the pool together, a fair semaphore keeps
+ * their wait bounded and ordered instead of letting late arrivals barge ahead of the queue.
+ * With read replicas every database gets a limiter of its own, its metrics are tagged with the target it limits.
+ */
+public class ConnectionLimitingDataSource extends DelegatingDataSource implements MeterBinder, AutoCloseable {
+    private final String target;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final long acquireTimeoutNanos;
+    private volatile Timer waitTimer;
+
+    public ConnectionLimitingDataSource(DataSource targetDataSource, int maxConcurrency, Duration acquireTimeout) {
+        this(targetDataSource, "primary", maxConcurrency, acquireTimeout);
+    }
+
+    public ConnectionLimitingDataSource(DataSource targetDataSource, String target, int maxConcurrency, Duration acquireTimeout) {
+        super(targetDataSource);
+        this.target = target;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        return limited(super::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        return limited(() -> super.getConnection(username, password));
+    }
+
+    public int getActiveConnections() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public int getWaitingThreads() {
+        return permits.getQueueLength();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable)
+            closeable.close();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("books.db.limiter.active", this, ConnectionLimitingDataSource::getActiveConnections)
+                .description("Connections currently handed out through the limiter")
+                .tag("target", target)
+                .register(registry);
+        Gauge.builder("books.db.limiter.waiting", this, ConnectionLimitingDataSource::getWaitingThreads)
+                .description("Requests queued for a connection")
+                .tag("target", target)
+                .register(registry);
+        waitTimer = Timer.builder("books.db.limiter.wait")
+                .description("Time spent queued for a connection")
+                .tag("target", target)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            boolean acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+            Timer timer = waitTimer;
+            if (timer != null)
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (!acquired)
+                throw new SQLTransientConnectionException("Timed out waiting for a database connection");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    // The permit goes back when the connection is closed, or right away if opening it failed
+    private Connection limited(ConnectionSupplier supplier) throws SQLException {
+        Connection connection;
+        try {
+            connection = supplier.get();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                        try {
+                            connection.close();
+                        } finally {
+                            permits.release();
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+}
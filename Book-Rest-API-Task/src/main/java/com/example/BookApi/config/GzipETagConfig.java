@@ -0,0 +1,37 @@
+package com.example.BookApi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+/**
+ * Compression of strong-tagged /books responses, on whenever server.compression is.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "server.compression.enabled", havingValue = "true")
+public class GzipETagConfig {
+
+    @Bean
+    @Profile("!reactive")
+    FilterRegistrationBean<GzipETagFilter> gzipETagFilter(ServerProperties serverProperties) {
+        Compression compression = serverProperties.getCompression();
+        FilterRegistrationBean<GzipETagFilter> registration = new FilterRegistrationBean<>(
+                new GzipETagFilter(compression.getMimeTypes(), compression.getMinResponseSize().toBytes()));
+        registration.addUrlPatterns("/books", "/books/*");
+        // Inside the limiter, and inside request timing so the Server-Timing header is set on the wrapped response
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 3);
+        return registration;
+    }
+
+    @Bean
+    @Profile("reactive")
+    GzipETagWebFilter gzipETagWebFilter(ServerProperties serverProperties) {
+        Compression compression = serverProperties.getCompression();
+        return new GzipETagWebFilter(compression.getMimeTypes(), compression.getMinResponseSize().toBytes());
+    }
+}
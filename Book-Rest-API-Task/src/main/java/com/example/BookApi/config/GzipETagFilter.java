@@ -0,0 +1,245 @@
+package com.example.BookApi.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.MimeType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips /books responses carrying a strong ETag, which Tomcat leaves alone. Their gzipped variant goes out
+ * tagged "...-gzip" (see GzipETags), and both variants vary by Accept-Encoding. Everything else is still
+ * compressed, or not, by Tomcat, and for the same MIME types and minimum size.
+ */
+public class GzipETagFilter extends OncePerRequestFilter {
+    private static final String RESPONSE_ATTRIBUTE = GzipETagFilter.class.getName() + ".response";
+
+    private final List<MimeType> mimeTypes;
+    private final long minResponseSize;
+
+    public GzipETagFilter(String[] mimeTypes, long minResponseSize) {
+        this.mimeTypes = GzipETags.mimeTypes(mimeTypes);
+        this.minResponseSize = minResponseSize;
+    }
+
+    // Streamed bodies are written by another thread and finished on the async dispatch, which closes the stream
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        GzipResponse gzipResponse = (GzipResponse) request.getAttribute(RESPONSE_ATTRIBUTE);
+        if (gzipResponse == null) {
+            gzipResponse = new GzipResponse(response, GzipETags.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING)),
+                    request.getHeader(HttpHeaders.IF_NONE_MATCH));
+            request.setAttribute(RESPONSE_ATTRIBUTE, gzipResponse);
+        }
+        chain.doFilter(request, gzipResponse);
+        if (!request.isAsyncStarted())
+            gzipResponse.finish();
+    }
+
+    private final class GzipResponse extends HttpServletResponseWrapper {
+        private final boolean acceptsGzip;
+        private final String ifNoneMatch;
+        // Held back until it's known whether the body is gzipped
+        private long contentLength = -1;
+        private Boolean gzipping;
+        private GzipStream stream;
+        private PrintWriter writer;
+
+        GzipResponse(HttpServletResponse response, boolean acceptsGzip, String ifNoneMatch) {
+            super(response);
+            this.acceptsGzip = acceptsGzip;
+            this.ifNoneMatch = ifNoneMatch;
+        }
+
+        // Decided when the headers are about to go out, so the ETag and content type are final
+        private boolean gzipping() {
+            if (gzipping == null) {
+                gzipping = false;
+                String eTag = getHeader(HttpHeaders.ETAG);
+                if (GzipETags.isStrong(eTag)) {
+                    addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                    if (getStatus() == HttpStatus.NOT_MODIFIED.value()) {
+                        if (GzipETags.heldGzipped(ifNoneMatch, eTag))
+                            setHeader(HttpHeaders.ETAG, GzipETags.gzipped(eTag));
+                    } else if (acceptsGzip && getStatus() == HttpStatus.OK.value()
+                            && getHeader(HttpHeaders.CONTENT_ENCODING) == null
+                            && GzipETags.compressible(getContentType(), mimeTypes)
+                            && (contentLength < 0 || contentLength >= minResponseSize)) {
+                        gzipping = true;
+                        setHeader(HttpHeaders.ETAG, GzipETags.gzipped(eTag));
+                        setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                    }
+                }
+                if (!gzipping && contentLength >= 0)
+                    super.setContentLengthLong(contentLength);
+            }
+            return gzipping;
+        }
+
+        void finish() throws IOException {
+            if (!gzipping())
+                return;
+            if (writer != null)
+                writer.flush();
+            getOutputStream();
+            stream.finish();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (!gzipping())
+                return super.getOutputStream();
+            if (stream == null)
+                stream = new GzipStream(super.getOutputStream());
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (!gzipping())
+                return super.getWriter();
+            if (writer == null)
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (gzipping()) {
+                if (writer != null)
+                    writer.flush();
+                else if (stream != null)
+                    stream.flush();
+            }
+            super.flushBuffer();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            contentLength = -1;
+            gzipping = null;
+            stream = null;
+            writer = null;
+        }
+
+        // The gzip header written so far is discarded with the buffer, a new stream writes it again
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            stream = null;
+            writer = null;
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            setContentLengthLong(length);
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            if (gzipping == null)
+                contentLength = length;
+            else if (!gzipping)
+                super.setContentLengthLong(length);
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name))
+                setContentLengthLong(Long.parseLong(value));
+            else
+                super.setHeader(name, value);
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name))
+                setContentLengthLong(Long.parseLong(value));
+            else
+                super.addHeader(name, value);
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name))
+                setContentLengthLong(value);
+            else
+                super.setIntHeader(name, value);
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name))
+                setContentLengthLong(value);
+            else
+                super.addIntHeader(name, value);
+        }
+    }
+
+    private static final class GzipStream extends ServletOutputStream {
+        private final ServletOutputStream target;
+        private final GZIPOutputStream gzip;
+        private boolean closed;
+
+        GzipStream(ServletOutputStream target) throws IOException {
+            this.target = target;
+            // Sync flush, so a flush hands the client everything written so far, as it does uncompressed
+            this.gzip = new GZIPOutputStream(target, true);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            gzip.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            gzip.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            gzip.flush();
+        }
+
+        void finish() throws IOException {
+            if (!closed)
+                gzip.finish();
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            gzip.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return target.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            target.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.BookApi.config;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.util.MimeType;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * GzipETagFilter for the reactive stack. Netty would compress strong-tagged responses as readily as any other,
+ * so skipStrongETags takes them out of its compression for this filter to handle.
+ */
+public class GzipETagWebFilter implements WebFilter {
+    private final List<MimeType> mimeTypes;
+    private final long minResponseSize;
+
+    public GzipETagWebFilter(String[] mimeTypes, long minResponseSize) {
+        this.mimeTypes = GzipETags.mimeTypes(mimeTypes);
+        this.minResponseSize = minResponseSize;
+    }
+
+    // Applied after Boot's server.compression settings, which leave a predicate to narrow down
+    public static HttpServer skipStrongETags(HttpServer server) {
+        BiPredicate<HttpServerRequest, HttpServerResponse> compress = server.configuration().compressPredicate();
+        if (compress == null)
+            return server;
+        return server.compress(compress.and((request, response) ->
+                !GzipETags.isStrong(response.responseHeaders().get(HttpHeaders.ETAG))));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().pathWithinApplication().value();
+        if (!path.equals("/books") && !path.startsWith("/books/"))
+            return chain.filter(exchange);
+        GzipResponse response = new GzipResponse(exchange.getResponse(),
+                GzipETags.acceptsGzip(request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING)),
+                request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH));
+        return chain.filter(exchange.mutate().response(response).build());
+    }
+
+    // Bodies written with flushes, like the change feed, aren't compressible and pass through as they are
+    private final class GzipResponse extends ServerHttpResponseDecorator {
+        private final boolean acceptsGzip;
+        private final String ifNoneMatch;
+
+        GzipResponse(ServerHttpResponse delegate, boolean acceptsGzip, String ifNoneMatch) {
+            super(delegate);
+            this.acceptsGzip = acceptsGzip;
+            this.ifNoneMatch = ifNoneMatch;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return gzipping() ? super.writeWith(gzip(body)) : super.writeWith(body);
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            gzipping();
+            return super.setComplete();
+        }
+
+        private boolean gzipping() {
+            HttpHeaders headers = getHeaders();
+            String eTag = headers.getETag();
+            if (!GzipETags.isStrong(eTag) || isCommitted())
+                return false;
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                if (GzipETags.heldGzipped(ifNoneMatch, eTag))
+                    headers.setETag(GzipETags.gzipped(eTag));
+                return false;
+            }
+            MediaType contentType = headers.getContentType();
+            long contentLength = headers.getContentLength();
+            if (!acceptsGzip || (getStatusCode() != null && getStatusCode() != HttpStatus.OK)
+                    || headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                    || !GzipETags.compressible(contentType == null ? null : contentType.toString(), mimeTypes)
+                    || (contentLength >= 0 && contentLength < minResponseSize))
+                return false;
+            headers.setETag(GzipETags.gzipped(eTag));
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            return true;
+        }
+
+        private Flux<DataBuffer> gzip(Publisher<? extends DataBuffer> body) {
+            return Flux.using(Gzip::new, gzip -> Flux.from(body)
+                    .concatMap(buffer -> Mono.justOrEmpty(gzip.write(buffer)))
+                    .concatWith(Mono.fromSupplier(gzip::finish)), Gzip::close);
+        }
+
+        // Hands out whatever the deflater produced so far, nothing until it has a block ready
+        private final class Gzip {
+            private final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            private final GZIPOutputStream gzip;
+
+            Gzip() throws IOException {
+                this.gzip = new GZIPOutputStream(compressed);
+            }
+
+            DataBuffer write(DataBuffer buffer) {
+                try (InputStream in = buffer.asInputStream(true)) {
+                    in.transferTo(gzip);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return compressed.size() == 0 ? null : drain();
+            }
+
+            DataBuffer finish() {
+                try {
+                    gzip.finish();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return drain();
+            }
+
+            private DataBuffer drain() {
+                DataBuffer buffer = bufferFactory().wrap(compressed.toByteArray());
+                compressed.reset();
+                return buffer;
+            }
+
+            void close() {
+                try {
+                    gzip.close();
+                } catch (IOException e) {
+                    // Only releases the deflater, nothing is written anywhere by now
+                }
+            }
+        }
+    }
+}
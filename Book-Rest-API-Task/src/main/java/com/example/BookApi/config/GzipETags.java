@@ -0,0 +1,76 @@
+package com.example.BookApi.config;
+
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tags of gzipped responses. A strong ETag names one exact byte sequence, so the gzipped variant of a response
+ * tagged "x" is tagged "x-gzip". BookETags ignores the suffix when matching, both variants have the same version.
+ */
+public final class GzipETags {
+    public static final String SUFFIX = "-gzip";
+
+    private GzipETags() {
+    }
+
+    static boolean isStrong(String eTag) {
+        return eTag != null && eTag.startsWith("\"");
+    }
+
+    static String gzipped(String eTag) {
+        return eTag.substring(0, eTag.length() - 1) + SUFFIX + "\"";
+    }
+
+    // Whether the client's If-None-Match holds the gzipped variant of eTag, which a 304 then has to confirm
+    static boolean heldGzipped(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null)
+            return false;
+        String gzipped = gzipped(eTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if ((value.startsWith("W/") ? value.substring(2) : value).equals(gzipped))
+                return true;
+        }
+        return false;
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if ((name.equalsIgnoreCase("gzip") || name.equals("*")) && !refused(parts))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean refused(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) == 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    static List<MimeType> mimeTypes(String[] mimeTypes) {
+        return Arrays.stream(mimeTypes).map(MimeType::valueOf).toList();
+    }
+
+    static boolean compressible(String contentType, List<MimeType> mimeTypes) {
+        if (contentType == null)
+            return false;
+        MediaType type = MediaType.parseMediaType(contentType);
+        return mimeTypes.stream().anyMatch(mimeType -> mimeType.isCompatibleWith(type));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.BookApi.config;
+
+import com.example.BookApi.repositories.BookRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.repository.config.BootstrapMode;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+/**
+ * JPA repositories for the servlet stack, leaving the reactive ones to R2DBC. Declaring them here turns off
+ * Spring Boot's own repository setup, so spring.data.jpa.repositories.bootstrap-mode is honoured here instead:
+ * deferred (the default) builds the EntityManagerFactory on the application task executor while the rest of the
+ * context starts and creates the repositories once it is refreshed, default builds everything on the main thread.
+ */
+@Configuration(proxyBeanMethods = false)
+public class JpaConfig {
+
+    // Component scanning picks these up on their own too, so each needs the profile
+    @Configuration(proxyBeanMethods = false)
+    @Profile("!reactive")
+    @ConditionalOnProperty(name = "spring.data.jpa.repositories.bootstrap-mode", havingValue = "deferred", matchIfMissing = true)
+    @EnableJpaRepositories(basePackageClasses = BookRepository.class, bootstrapMode = BootstrapMode.DEFERRED,
+            excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ReactiveCrudRepository.class))
+    static class DeferredRepositories {
+
+        @Bean
+        EntityManagerFactoryBuilderCustomizer backgroundBootstrap(@Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor) {
+            return builder -> builder.setBootstrapExecutor(executor);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @Profile("!reactive")
+    @ConditionalOnProperty(name = "spring.data.jpa.repositories.bootstrap-mode", havingValue = "default")
+    @EnableJpaRepositories(basePackageClasses = BookRepository.class,
+            excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ReactiveCrudRepository.class))
+    static class Repositories {
+    }
+}
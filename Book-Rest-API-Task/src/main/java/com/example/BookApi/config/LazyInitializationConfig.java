@@ -0,0 +1,20 @@
+package com.example.BookApi.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.sql.init.AbstractScriptDatabaseInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Beans that have to be created at startup even with spring.main.lazy-initialization, because nothing asks for
+ * them later. Schema scripts have to run before the first request, with R2DBC no other bean depends on them.
+ * Lifecycle beans such as the ingest queue and the filters are created eagerly by Spring anyway.
+ */
+@Configuration(proxyBeanMethods = false)
+public class LazyInitializationConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerDatabaseInitializers() {
+        return LazyInitializationExcludeFilter.forBeanTypes(AbstractScriptDatabaseInitializer.class);
+    }
+}
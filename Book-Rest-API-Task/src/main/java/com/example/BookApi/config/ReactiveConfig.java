@@ -0,0 +1,82 @@
+package com.example.BookApi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ReactorResourceFactory;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.LoopResources;
+
+import java.util.Map;
+
+/**
+ * Reactive variant of the API, switched on with the "reactive" profile.
+ * Netty serves every connection from a small fixed set of event-loop threads,
+ * so slow clients cost buffers rather than a blocked thread each.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("reactive")
+public class ReactiveConfig {
+
+    @Bean
+    ReactorResourceFactory reactorResourceFactory(@Value("${books.reactive.event-loop-threads:4}") int eventLoopThreads) {
+        ReactorResourceFactory factory = new ReactorResourceFactory();
+        factory.setUseGlobalResources(false);
+        factory.setLoopResourcesSupplier(() -> LoopResources.create("books-event-loop", eventLoopThreads, true));
+        return factory;
+    }
+
+    // spring-boot-starter-web keeps Tomcat on the classpath and Boot would pick it for WebFlux too,
+    // so Netty is declared explicitly and runs on the event loops above
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory(ReactorResourceFactory reactorResourceFactory) {
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        factory.setResourceFactory(reactorResourceFactory);
+        factory.addServerCustomizers(GzipETagWebFilter::skipStrongETags);
+        return factory;
+    }
+
+    // WebFlux only ships Smile by default; CBOR matches the servlet stack's message converters
+    @Bean
+    CodecCustomizer cborCodecCustomizer(ObjectMapper objectMapper) {
+        CborValueEncoder encoder = new CborValueEncoder(objectMapper.copyWith(new CBORFactory()));
+        return configurer -> configurer.customCodecs().register(encoder);
+    }
+
+    /**
+     * Spring's CBOR encoder only writes single values, which is all the router sends as CBOR. Held to bodies
+     * already typed application/cbor, as it would otherwise claim untyped ones such as streamed lists.
+     */
+    private static class CborValueEncoder extends Jackson2CborEncoder {
+
+        CborValueEncoder(ObjectMapper cborMapper) {
+            super(cborMapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+            return MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(mimeType) && super.canEncode(elementType, mimeType);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                       MimeType mimeType, Map<String, Object> hints) {
+            if (!(inputStream instanceof Mono<?> value))
+                return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+            return value.map(body -> encodeValue(body, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+    }
+}
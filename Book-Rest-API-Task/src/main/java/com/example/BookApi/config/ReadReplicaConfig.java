@@ -0,0 +1,103 @@
+package com.example.BookApi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas for the servlet stack, switched on by listing them in books.datasource.replica-urls.
+ * Read-only transactions (Spring Data's finders, @Transactional(readOnly = true)) go to the replicas,
+ * writes and everything inside a write transaction go to the primary.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnExpression("!'${books.datasource.replica-urls:}'.isBlank()")
+public class ReadReplicaConfig {
+
+    @Bean
+    static ReplicaRouter readReplicaRouting(Environment environment) {
+        return new ReplicaRouter(environment);
+    }
+
+    @Bean
+    ReadYourWrites readYourWrites(@Value("${books.datasource.sticky-window:5s}") Duration window) {
+        return new ReadYourWrites(window);
+    }
+
+    // Ordered, so it runs after the statement counter and before the unordered connection limiter,
+    // which then limits the primary and every replica on its own. The bean method declares this type,
+    // the post-processors are sorted before they are created
+    record ReplicaRouter(Environment environment) implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource) || bean instanceof RoutingDataSourceProxy)
+                return bean;
+            List<DataSource> replicas = new ArrayList<>();
+            String[] urls = environment.getRequiredProperty("books.datasource.replica-urls").split(",");
+            for (int i = 0; i < urls.length; i++) {
+                DataSource replica = replica(environment, urls[i].trim(), i);
+                // Counted like the primary when StatementStatisticsConfig has wrapped it
+                replicas.add(dataSource instanceof StatementCountingDataSource counting ? counting.wrap(replica) : replica);
+            }
+            Duration retry = environment.getProperty("books.datasource.replica-retry", Duration.class, Duration.ofSeconds(30));
+            return new RoutingDataSourceProxy(new ReadWriteRoutingDataSource(dataSource, replicas, retry));
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+
+    // Replicas share the primary's driver and credentials
+    private static DataSource replica(Environment environment, String url, int index) {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica-" + index);
+        replica.setJdbcUrl(url);
+        replica.setUsername(environment.getProperty("spring.datasource.username"));
+        replica.setPassword(environment.getProperty("spring.datasource.password"));
+        String driver = environment.getProperty("spring.datasource.driver-class-name");
+        if (driver != null)
+            replica.setDriverClassName(driver);
+        replica.setMaximumPoolSize(environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        replica.setReadOnly(true);
+        // Fail fast so the router moves on to the next replica instead of hanging on a dead one
+        replica.setInitializationFailTimeout(-1);
+        replica.setConnectionTimeout(environment.getProperty("books.datasource.replica-connection-timeout", Duration.class,
+                Duration.ofSeconds(2)).toMillis());
+        return replica;
+    }
+
+    // Defers fetching a connection until the first statement, and closes every pool when the context shuts down
+    static class RoutingDataSourceProxy extends LazyConnectionDataSourceProxy implements AutoCloseable {
+        private final ReadWriteRoutingDataSource router;
+
+        RoutingDataSourceProxy(ReadWriteRoutingDataSource router) {
+            super(router);
+            this.router = router;
+        }
+
+        public ReadWriteRoutingDataSource getRouter() {
+            return router;
+        }
+
+        @Override
+        public void close() throws Exception {
+            router.close();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.BookApi.config;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Sends read-only transactions to the replicas in turn and everything else to the primary.
+ * A replica that fails to hand out a connection is skipped for replicaRetry, and reads fall back
+ * to the primary while every replica is down. Requests inside the read-your-writes window always use the primary.
+ * Must sit behind a LazyConnectionDataSourceProxy, so the read-only flag is known when the connection is fetched.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long replicaRetryNanos;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration replicaRetry) {
+        this.primary = primary;
+        // Named like their pools in ReadReplicaConfig
+        this.replicas = IntStream.range(0, replicas.size()).mapToObj(i -> new Replica("replica-" + i, replicas.get(i))).toList();
+        this.replicaRetryNanos = replicaRetry.toNanos();
+    }
+
+    // A router over the same databases with each one wrapped by name, e.g. in a connection limiter of its own
+    public ReadWriteRoutingDataSource mapTargets(BiFunction<String, DataSource, DataSource> wrapper) {
+        List<DataSource> wrapped = replicas.stream().map(replica -> wrapper.apply(replica.name, replica.dataSource)).toList();
+        return new ReadWriteRoutingDataSource(wrapper.apply("primary", primary), wrapped, Duration.ofNanos(replicaRetryNanos));
+    }
+
+    // The primary first, then the replicas, by name
+    public Map<String, DataSource> getTargets() {
+        Map<String, DataSource> targets = new LinkedHashMap<>();
+        targets.put("primary", primary);
+        replicas.forEach(replica -> targets.put(replica.name, replica.dataSource));
+        return targets;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    public int getHealthyReplicas() {
+        return (int) replicas.stream().filter(replica -> !replica.isDown()).count();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable)
+                closeable.close();
+        }
+        if (primary instanceof AutoCloseable closeable)
+            closeable.close();
+    }
+
+    private Connection route(ConnectionOpener opener) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReadYourWrites.isActive())
+            return opener.open(primary);
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(1, replicas.size()));
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.isDown())
+                continue;
+            try {
+                Connection connection = opener.open(replica.dataSource);
+                replica.downUntil = 0;
+                return connection;
+            } catch (SQLException e) {
+                logger.warn("Read replica unavailable, failing over", e);
+                replica.downUntil = System.nanoTime() + replicaRetryNanos;
+            }
+        }
+        return opener.open(primary);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionOpener {
+        Connection open(DataSource dataSource) throws SQLException;
+    }
+
+    private class Replica {
+        final String name;
+        final DataSource dataSource;
+        // Nano time until which the replica is skipped, 0 while healthy
+        volatile long downUntil;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        boolean isDown() {
+            long until = downUntil;
+            return until != 0 && System.nanoTime() - until < 0;
+        }
+    }
+}
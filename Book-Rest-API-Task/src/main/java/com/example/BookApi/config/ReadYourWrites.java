@@ -0,0 +1,88 @@
+package com.example.BookApi.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Read-your-writes for clients of a replicated database. Every write request gets a cookie holding the
+ * time until which that client's reads go to the primary, so replica lag can't hide its own changes.
+ * The cookie keeps the server stateless and works across instances.
+ */
+public class ReadYourWrites extends OncePerRequestFilter implements TaskDecorator {
+    static final String COOKIE = "BOOKS_PRIMARY_UNTIL";
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private final Duration window;
+
+    public ReadYourWrites(Duration window) {
+        this.window = window;
+    }
+
+    static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        // Set before the chain runs, the response may be committed by the time it returns
+        if (WRITE_METHODS.contains(request.getMethod())) {
+            Cookie cookie = new Cookie(COOKIE, Long.toString(now + window.toMillis()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+            response.addCookie(cookie);
+        }
+        if (!primaryRequested(request, now)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+
+    // Asynchronous responses such as the streamed GET /books keep the caller's routing
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        if (!isActive())
+            return runnable;
+        return () -> {
+            ACTIVE.set(Boolean.TRUE);
+            try {
+                runnable.run();
+            } finally {
+                ACTIVE.remove();
+            }
+        };
+    }
+
+    private static boolean primaryRequested(HttpServletRequest request, long now) {
+        if (request.getCookies() == null)
+            return false;
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > now;
+                } catch (NumberFormatException ignored) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
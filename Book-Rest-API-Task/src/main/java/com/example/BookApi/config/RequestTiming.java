@@ -0,0 +1,207 @@
+package com.example.BookApi.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-stage durations of one request, kept by the request thread. Each stage gets its own time only, so a
+ * service method is not also counted in the controller that called it and the stages add up to the total.
+ * Switching stage costs one System.nanoTime() call and no allocation.
+ * Also counts the SQL statements the request thread executes, per shape, against the request's statement budget.
+ */
+public final class RequestTiming {
+
+    public enum Stage {
+        // Servlet filters and handler lookup, up to the first HandlerInterceptor
+        FILTERS,
+        // Argument resolution and body reading, return value handling and whatever else DispatcherServlet does
+        DISPATCH,
+        VALIDATION,
+        CONTROLLER,
+        SERVICE,
+        REPOSITORY,
+        // From the first byte of the body until the filter chain returns
+        SERIALIZATION,
+        // After the request thread left an asynchronous response, until it completed
+        ASYNC;
+
+        private final String metric = name().toLowerCase(Locale.ROOT);
+
+        public String metric() {
+            return metric;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final Thread owner = Thread.currentThread();
+    private final long start = System.nanoTime();
+    private final long[] nanos = new long[STAGES.length];
+    private Stage[] callers = new Stage[8];
+    private int depth;
+    private Stage stage = Stage.FILTERS;
+    private long since = start;
+    private long end;
+    private int statementBudget = Integer.MAX_VALUE;
+    private int statements;
+    private long statementNanos;
+    private long slowestStatementNanos;
+    private String slowestStatement;
+    private Map<String, Integer> statementShapes;
+
+    public static RequestTiming start() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    // Null outside the request thread, e.g. while an asynchronous response is written
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    public void enter(Stage next) {
+        long now = System.nanoTime();
+        nanos[stage.ordinal()] += now - since;
+        if (depth == callers.length)
+            callers = Arrays.copyOf(callers, depth * 2);
+        callers[depth++] = stage;
+        stage = next;
+        since = now;
+    }
+
+    public void exit() {
+        long now = System.nanoTime();
+        nanos[stage.ordinal()] += now - since;
+        stage = callers[--depth];
+        since = now;
+    }
+
+    // Moves on to the next top-level stage, ignored while inside a controller, service or repository call
+    public void switchTo(Stage next) {
+        if (depth > 0 || stage == next)
+            return;
+        long now = System.nanoTime();
+        nanos[stage.ordinal()] += now - since;
+        stage = next;
+        since = now;
+    }
+
+    public void stop() {
+        end = System.nanoTime();
+        nanos[stage.ordinal()] += end - since;
+        since = end;
+    }
+
+    public void setStatementBudget(int statementBudget) {
+        this.statementBudget = statementBudget;
+    }
+
+    public int getStatementBudget() {
+        return statementBudget;
+    }
+
+    // Counted before the statement runs, returns false once the request has gone over its budget
+    public boolean statementStarting(String shape) {
+        if (statementShapes == null)
+            statementShapes = new HashMap<>();
+        statementShapes.merge(shape, 1, Integer::sum);
+        return ++statements <= statementBudget;
+    }
+
+    public void statementExecuted(String shape, long nanos) {
+        statementNanos += nanos;
+        if (nanos > slowestStatementNanos) {
+            slowestStatementNanos = nanos;
+            slowestStatement = shape;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getStatementNanos() {
+        return statementNanos;
+    }
+
+    public long getSlowestStatementNanos() {
+        return slowestStatementNanos;
+    }
+
+    public String getSlowestStatement() {
+        return slowestStatement;
+    }
+
+    // Statement shapes executed at least minimum times, the usual sign of an N+1 query
+    public List<String> getRepeatedStatements(int minimum) {
+        List<String> repeated = new ArrayList<>();
+        if (statementShapes != null) {
+            statementShapes.forEach((shape, count) -> {
+                if (count >= minimum)
+                    repeated.add(count + "x " + shape);
+            });
+        }
+        return repeated;
+    }
+
+    boolean isOwner() {
+        return Thread.currentThread() == owner;
+    }
+
+    public long getNanos(Stage stage) {
+        return nanos[stage.ordinal()] + (end == 0 && stage == this.stage ? System.nanoTime() - since : 0);
+    }
+
+    public long getTotalNanos() {
+        return (end == 0 ? System.nanoTime() : end) - start;
+    }
+
+    // Server-Timing value with the stages seen so far, the time spent in SQL statements and the total, in milliseconds
+    public String serverTiming() {
+        long now = end == 0 ? System.nanoTime() : end;
+        StringBuilder header = new StringBuilder(128);
+        for (Stage each : STAGES) {
+            long stageNanos = nanos[each.ordinal()] + (each == stage ? now - since : 0);
+            if (stageNanos > 0)
+                appendMillis(header.append(each.metric()).append(";dur="), stageNanos).append(", ");
+        }
+        if (statements > 0) {
+            appendMillis(header.append("db;dur="), statementNanos)
+                    .append(";desc=\"").append(statements).append(statements == 1 ? " statement\", " : " statements\", ");
+        }
+        return appendMillis(header.append("total;dur="), now - start).toString();
+    }
+
+    public Map<String, Double> getStageMillis() {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        for (Stage each : STAGES) {
+            long stageNanos = getNanos(each);
+            if (stageNanos > 0)
+                millis.put(each.metric(), stageNanos / 1_000_000.0);
+        }
+        return millis;
+    }
+
+    // Microsecond precision, without going through String.format
+    private static StringBuilder appendMillis(StringBuilder builder, long nanos) {
+        long micros = nanos / 1000;
+        long fraction = micros % 1000;
+        builder.append(micros / 1000).append('.');
+        if (fraction < 100)
+            builder.append('0');
+        if (fraction < 10)
+            builder.append('0');
+        return builder.append(fraction);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.BookApi.config;
+
+import com.example.BookApi.config.RequestTiming.Stage;
+import com.example.BookApi.controllers.StatementBudget;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-Timing for /books: the filter starts the clock, a HandlerInterceptor marks the end of the filter chain,
+ * the MVC validator is timed as validation and advisors on controllers, services and Spring Data repositories
+ * time the calls into them. The interceptor also sets the request's statement budget. Slow and flagged requests are
+ * kept at /actuator/slowrequests.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty(name = "books.timing.enabled", havingValue = "true", matchIfMissing = true)
+public class RequestTimingConfig {
+
+    @Bean
+    SlowRequestLog slowRequestLog(@Value("${books.timing.slow-log-size:100}") int size) {
+        return new SlowRequestLog(size);
+    }
+
+    @Bean
+    FilterRegistrationBean<RequestTimingFilter> requestTimingFilter(SlowRequestLog slowRequestLog,
+                                                                    @Value("${books.timing.slow-threshold:500ms}") Duration slowThreshold,
+                                                                    @Value("${books.statements.repeated-threshold:5}") int repeatedStatements,
+                                                                    @Value("${books.statements.slow-threshold:100ms}") Duration slowStatement) {
+        FilterRegistrationBean<RequestTimingFilter> registration = new FilterRegistrationBean<>(
+                new RequestTimingFilter(slowRequestLog, slowThreshold, repeatedStatements, slowStatement));
+        registration.addUrlPatterns("/books", "/books/*");
+        // Ahead of every other filter, so their time is counted too
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    WebMvcConfigurer requestTimingMvcConfigurer(ObjectProvider<LocalValidatorFactoryBean> validator,
+                                                @Value("${books.statements.budget:20}") int statementBudget) {
+        // Budget per handler method, from its @StatementBudget or the default
+        Map<Method, Integer> statementBudgets = new ConcurrentHashMap<>();
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new HandlerInterceptor() {
+                    @Override
+                    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                        RequestTiming timing = RequestTiming.current();
+                        if (timing == null)
+                            return true;
+                        timing.switchTo(Stage.DISPATCH);
+                        if (handler instanceof HandlerMethod handlerMethod) {
+                            timing.setStatementBudget(statementBudgets.computeIfAbsent(handlerMethod.getMethod(), method -> {
+                                StatementBudget budget = handlerMethod.getMethodAnnotation(StatementBudget.class);
+                                return budget != null ? budget.value() : statementBudget;
+                            }));
+                        }
+                        return true;
+                    }
+                });
+            }
+
+            // Wraps the validator Spring Boot would have used for @Valid anyway
+            @Override
+            public Validator getValidator() {
+                return new TimedValidator(validator.getObject());
+            }
+        };
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor controllerTimingAdvisor() {
+        return timingAdvisor(new AnnotationMatchingPointcut(RestController.class, true), Stage.CONTROLLER);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor serviceTimingAdvisor() {
+        return timingAdvisor(new AnnotationMatchingPointcut(Service.class, true), Stage.SERVICE);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor repositoryTimingAdvisor() {
+        return timingAdvisor(new ComposablePointcut(Repository.class::isAssignableFrom), Stage.REPOSITORY);
+    }
+
+    private static Advisor timingAdvisor(Pointcut pointcut, Stage stage) {
+        MethodInterceptor interceptor = invocation -> {
+            RequestTiming timing = RequestTiming.current();
+            if (timing == null)
+                return invocation.proceed();
+            timing.enter(stage);
+            try {
+                return invocation.proceed();
+            } finally {
+                timing.exit();
+            }
+        };
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, interceptor);
+        // Outside the metrics and transaction interceptors, commits belong to the service
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    private record TimedValidator(SmartValidator delegate) implements SmartValidator {
+
+        @Override
+        public boolean supports(Class<?> clazz) {
+            return delegate.supports(clazz);
+        }
+
+        @Override
+        public void validate(Object target, Errors errors) {
+            validate(target, errors, new Object[0]);
+        }
+
+        @Override
+        public void validate(Object target, Errors errors, Object... validationHints) {
+            RequestTiming timing = RequestTiming.current();
+            if (timing == null) {
+                delegate.validate(target, errors, validationHints);
+                return;
+            }
+            timing.enter(Stage.VALIDATION);
+            try {
+                delegate.validate(target, errors, validationHints);
+            } finally {
+                timing.exit();
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.BookApi.config;
+
+import com.example.BookApi.config.RequestTiming.Stage;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the RequestTiming of each request and adds it as a Server-Timing header when the response is about
+ * to be committed, so the header covers everything up to the first byte of the body. Requests slower than the
+ * threshold go to the SlowRequestLog with the complete breakdown, serialization and asynchronous writing included.
+ * So do requests flagged for going over their statement budget, for running the same statement shape
+ * repeatedStatements times or more (an N+1 query, most likely), or for a single statement slower than slowStatement.
+ * Asynchronous responses written from another thread, like the streamed GET /books, get no header.
+ */
+public class RequestTimingFilter extends OncePerRequestFilter {
+    static final String SERVER_TIMING = "Server-Timing";
+
+    private final SlowRequestLog slowRequests;
+    private final long slowThresholdNanos;
+    private final int repeatedStatements;
+    private final long slowStatementNanos;
+
+    public RequestTimingFilter(SlowRequestLog slowRequests, Duration slowThreshold, int repeatedStatements,
+                               Duration slowStatement) {
+        this.slowRequests = slowRequests;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.repeatedStatements = repeatedStatements;
+        this.slowStatementNanos = slowStatement.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.start();
+        TimingResponse timingResponse = new TimingResponse(response, timing);
+        try {
+            chain.doFilter(request, timingResponse);
+        } finally {
+            RequestTiming.clear();
+            if (request.isAsyncStarted()) {
+                timing.switchTo(Stage.ASYNC);
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        finish(request, timingResponse, timing);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                finish(request, timingResponse, timing);
+            }
+        }
+    }
+
+    private void finish(HttpServletRequest request, TimingResponse response, RequestTiming timing) {
+        timing.stop();
+        // Responses without a body aren't committed yet
+        response.writeHeader();
+        List<String> flags = timing.getStatements() == 0 ? List.of() : flags(timing);
+        if (timing.getTotalNanos() >= slowThresholdNanos || !flags.isEmpty()) {
+            String uri = request.getQueryString() == null ? request.getRequestURI()
+                    : request.getRequestURI() + "?" + request.getQueryString();
+            slowRequests.record(request.getMethod(), uri, response.getStatus(), timing, flags);
+        }
+    }
+
+    private List<String> flags(RequestTiming timing) {
+        List<String> flags = new ArrayList<>();
+        if (timing.getStatements() > timing.getStatementBudget())
+            flags.add(timing.getStatements() + " statements over a budget of " + timing.getStatementBudget());
+        for (String repeated : timing.getRepeatedStatements(repeatedStatements)) {
+            flags.add("repeated " + repeated);
+        }
+        if (timing.getSlowestStatementNanos() >= slowStatementNanos)
+            flags.add("slow statement of " + timing.getSlowestStatementNanos() / 1_000_000 + "ms " + timing.getSlowestStatement());
+        return flags;
+    }
+
+    private static final class TimingResponse extends HttpServletResponseWrapper {
+        private final RequestTiming timing;
+        private boolean headerWritten;
+
+        TimingResponse(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            bodyStarts();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            bodyStarts();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeader();
+            super.sendRedirect(location);
+        }
+
+        private void bodyStarts() {
+            if (timing.isOwner()) {
+                timing.switchTo(Stage.SERIALIZATION);
+                writeHeader();
+            }
+        }
+
+        // Only from the request thread, the timing isn't shared with the threads writing asynchronous responses
+        void writeHeader() {
+            if (headerWritten || !timing.isOwner())
+                return;
+            headerWritten = true;
+            if (!isCommitted())
+                setHeader(SERVER_TIMING, timing.serverTiming());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.BookApi.config;
+
+import com.example.BookApi.classes.Book;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import jakarta.persistence.SharedCacheMode;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.cache.CacheManager;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Hibernate second-level cache for Book entities plus the query cache, kept in Caffeine through JCache.
+ * Regions are read-write, so a transaction changing a book locks its entry until commit and readers
+ * fall through to the database meanwhile. Each context gets its own cache manager, closed with the
+ * entity manager factory, and Hibernate fails at startup rather than creating an unbounded region
+ * that isn't configured here.
+ * Meant for a single database: with read replicas a row read from a lagging replica would be cached for every
+ * client, undoing ReadYourWrites, so it's switched off with books.second-level-cache.enabled=false there.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+public class SecondLevelCacheConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "books.second-level-cache.enabled", matchIfMissing = true)
+    HibernatePropertiesCustomizer secondLevelCacheCustomizer(
+            @Value("${books.second-level-cache.max-entities:100000}") long maxEntities,
+            @Value("${books.second-level-cache.max-queries:1000}") long maxQueries,
+            @Value("${books.second-level-cache.ttl:1h}") Duration ttl) {
+        return properties -> {
+            CacheManager cacheManager = new CaffeineCachingProvider()
+                    .getCacheManager(URI.create("books-second-level-cache"), Book.class.getClassLoader());
+            cacheManager.createCache(Book.CACHE_REGION, bounded(maxEntities, ttl));
+            cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, bounded(maxQueries, ttl));
+            // Last write per table, checked before serving a cached query. Must never be evicted, one entry per table
+            cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>());
+
+            properties.putAll(Map.of(
+                    AvailableSettings.USE_SECOND_LEVEL_CACHE, true,
+                    AvailableSettings.USE_QUERY_CACHE, true,
+                    AvailableSettings.CACHE_REGION_FACTORY, "jcache",
+                    ConfigSettings.CACHE_MANAGER, cacheManager,
+                    ConfigSettings.MISSING_CACHE_STRATEGY, "fail",
+                    // Hit, miss and put counts per region, published as hibernate.* meters
+                    AvailableSettings.GENERATE_STATISTICS, true,
+                    // Without the session metrics statistics would log after every request, /actuator/queries has them
+                    AvailableSettings.LOG_SESSION_METRICS, false));
+        };
+    }
+
+    // Switched off explicitly, with hibernate-jcache on the classpath Hibernate would otherwise pick JCache
+    // on its own and create an unbounded region for Book
+    @Bean
+    @ConditionalOnProperty(name = "books.second-level-cache.enabled", havingValue = "false")
+    HibernatePropertiesCustomizer noSecondLevelCacheCustomizer() {
+        return properties -> properties.putAll(Map.of(
+                AvailableSettings.USE_SECOND_LEVEL_CACHE, false,
+                AvailableSettings.USE_QUERY_CACHE, false,
+                AvailableSettings.JAKARTA_SHARED_CACHE_MODE, SharedCacheMode.NONE));
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        return configuration;
+    }
+}
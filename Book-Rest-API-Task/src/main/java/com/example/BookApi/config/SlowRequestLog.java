@@ -0,0 +1,45 @@
+package com.example.BookApi.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The latest requests that took longer than the threshold or were flagged for their SQL statements, with their
+ * per-stage durations, served at /actuator/slowrequests newest first. A fixed ring, older entries are overwritten
+ * once it is full.
+ */
+@Endpoint(id = "slowrequests")
+public class SlowRequestLog {
+
+    public record Entry(Instant time, String method, String uri, int status, double totalMillis,
+                        Map<String, Double> stageMillis, int statements, double statementMillis, List<String> flags) {
+    }
+
+    private final Entry[] entries;
+    private long recorded;
+
+    public SlowRequestLog(int size) {
+        this.entries = new Entry[size];
+    }
+
+    public synchronized void record(String method, String uri, int status, RequestTiming timing, List<String> flags) {
+        entries[(int) (recorded++ % entries.length)] = new Entry(Instant.now(), method, uri, status,
+                timing.getTotalNanos() / 1_000_000.0, timing.getStageMillis(), timing.getStatements(),
+                timing.getStatementNanos() / 1_000_000.0, flags);
+    }
+
+    @ReadOperation
+    public synchronized List<Entry> entries() {
+        int count = (int) Math.min(recorded, entries.length);
+        List<Entry> newestFirst = new ArrayList<>(count);
+        for (long i = recorded - 1; i >= recorded - count; i--) {
+            newestFirst.add(entries[(int) (i % entries.length)]);
+        }
+        return newestFirst;
+    }
+}
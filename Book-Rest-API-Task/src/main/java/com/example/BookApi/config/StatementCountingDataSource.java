@@ -0,0 +1,96 @@
+package com.example.BookApi.config;
+
+import com.example.BookApi.exceptionHandler.StatementBudgetExceededException;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Times every statement executed through the pool, adding it to StatementStatistics and, on a request thread,
+ * to the request's RequestTiming. Statements and connections are wrapped in JDK proxies that only step in
+ * for prepare and execute calls.
+ * With failOverBudget a request running more statements than its budget fails on the first one too many,
+ * so tests catch a handler that went from one query to one per row.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource implements AutoCloseable {
+    private final StatementStatistics statistics;
+    private final boolean failOverBudget;
+
+    public StatementCountingDataSource(DataSource targetDataSource, StatementStatistics statistics, boolean failOverBudget) {
+        super(targetDataSource);
+        this.statistics = statistics;
+        this.failOverBudget = failOverBudget;
+    }
+
+    // For data sources that aren't beans themselves, like the read replicas behind the router
+    public DataSource wrap(DataSource dataSource) {
+        return new StatementCountingDataSource(dataSource, statistics, failOverBudget);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    // Closes the pool underneath, on shutdown or when the replica router closes its data sources
+    @Override
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable closeable)
+            closeable.close();
+    }
+
+    private Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                        // prepareStatement and prepareCall know their SQL up front, createStatement gets it per execute
+                        String shape = method.getName().startsWith("prepare") ? StatementStatistics.shape((String) args[0]) : null;
+                        return counting(statement, method.getReturnType(), shape);
+                    }
+                    return result;
+                });
+    }
+
+    private Object counting(Statement statement, Class<?> type, String preparedShape) {
+        return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("execute"))
+                        return invoke(statement, method, args);
+                    String shape = preparedShape != null ? preparedShape
+                            : args != null && args.length > 0 && args[0] instanceof String sql ? StatementStatistics.shape(sql)
+                            : StatementStatistics.OTHER;
+                    RequestTiming timing = RequestTiming.current();
+                    if (timing != null && !timing.statementStarting(shape) && failOverBudget)
+                        throw new StatementBudgetExceededException(timing.getStatementBudget(), shape);
+                    long start = System.nanoTime();
+                    try {
+                        return invoke(statement, method, args);
+                    } finally {
+                        long nanos = System.nanoTime() - start;
+                        statistics.record(shape, nanos);
+                        if (timing != null)
+                            timing.statementExecuted(shape, nanos);
+                    }
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
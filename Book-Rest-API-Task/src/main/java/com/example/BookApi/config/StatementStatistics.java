@@ -0,0 +1,94 @@
+package com.example.BookApi.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Execution count and time of every SQL statement shape since startup, or since the last DELETE,
+ * served at /actuator/queries with the most expensive shapes first. A shape is the SQL with its whitespace
+ * collapsed and parameter lists of two or more written as one, so a lookup of 3 IDs and one of 300 add up together.
+ * Past maxShapes distinct shapes the rest are counted together under OTHER.
+ */
+@Endpoint(id = "queries")
+public class StatementStatistics {
+    static final String OTHER = "(other statements)";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+
+    public record QueryShape(String sql, long count, double totalMillis, double meanMillis, double maxMillis) {
+    }
+
+    private final int maxShapes;
+    // Replaced as a whole on reset, so the slot count never goes out of step with the shapes it counts
+    private volatile Shapes shapes = new Shapes();
+
+    public StatementStatistics(int maxShapes) {
+        this.maxShapes = maxShapes;
+    }
+
+    public static String shape(String sql) {
+        String collapsed = WHITESPACE.matcher(sql.strip()).replaceAll(" ");
+        return collapsed.indexOf(',') < 0 ? collapsed : PARAMETER_LIST.matcher(collapsed).replaceAll("?, ...");
+    }
+
+    public void record(String shape, long nanos) {
+        Aggregate aggregate = shapes.get(shape);
+        aggregate.count.increment();
+        aggregate.totalNanos.add(nanos);
+        aggregate.maxNanos.accumulate(nanos);
+    }
+
+    @ReadOperation
+    public List<QueryShape> queries() {
+        return shapes.aggregates.entrySet().stream()
+                .map(entry -> entry.getValue().toQueryShape(entry.getKey()))
+                .sorted(Comparator.comparingDouble(QueryShape::totalMillis).reversed())
+                .toList();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        shapes = new Shapes();
+    }
+
+    private final class Shapes {
+        private final Map<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+        private final AtomicInteger slots = new AtomicInteger();
+
+        Aggregate get(String shape) {
+            Aggregate aggregate = aggregates.get(shape);
+            if (aggregate != null)
+                return aggregate;
+            // The slot is claimed inside computeIfAbsent, so of the threads meeting a new shape only the one adding it takes one
+            aggregate = aggregates.computeIfAbsent(shape, key -> claimSlot() ? new Aggregate() : null);
+            return aggregate != null ? aggregate : aggregates.computeIfAbsent(OTHER, key -> new Aggregate());
+        }
+
+        private boolean claimSlot() {
+            return slots.getAndUpdate(claimed -> claimed < maxShapes ? claimed + 1 : claimed) < maxShapes;
+        }
+    }
+
+    private static final class Aggregate {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        QueryShape toQueryShape(String sql) {
+            long executions = count.sum();
+            double totalMillis = totalNanos.sum() / 1_000_000.0;
+            return new QueryShape(sql, executions, totalMillis, executions == 0 ? 0 : totalMillis / executions,
+                    maxNanos.get() / 1_000_000.0);
+        }
+    }
+}
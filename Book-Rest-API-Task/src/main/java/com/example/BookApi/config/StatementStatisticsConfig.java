@@ -0,0 +1,51 @@
+package com.example.BookApi.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Counts and times the SQL statements behind the JPA repositories, see StatementCountingDataSource.
+ * The wrapper goes directly around the pool, so the read replica router and the connection limiter
+ * end up on top of it.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty(name = "books.statements.enabled", havingValue = "true", matchIfMissing = true)
+public class StatementStatisticsConfig {
+
+    @Bean
+    static StatementStatistics statementStatistics(@Value("${books.statements.max-shapes:500}") int maxShapes) {
+        return new StatementStatistics(maxShapes);
+    }
+
+    @Bean
+    static StatementCounter statementCounter(ObjectProvider<StatementStatistics> statistics,
+                                              @Value("${books.statements.fail-over-budget:false}") boolean failOverBudget) {
+        return new StatementCounter(statistics, failOverBudget);
+    }
+
+    // Ordered ahead of the read replica router, and so before the unordered connection limiter
+    record StatementCounter(ObjectProvider<StatementStatistics> statistics, boolean failOverBudget)
+            implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource))
+                return new StatementCountingDataSource(dataSource, statistics.getObject(), failOverBudget);
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE - 1;
+        }
+    }
+}
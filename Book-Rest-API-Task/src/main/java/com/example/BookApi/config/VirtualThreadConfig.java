@@ -0,0 +1,55 @@
+package com.example.BookApi.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Virtual-thread execution mode, switched on with spring.threads.virtual.enabled on a Java 21+ runtime.
+ * Spring Boot then runs Tomcat requests and async responses on virtual threads, so request concurrency
+ * is no longer capped by the thread pool and the connection limiter becomes the throttle instead.
+ * With read replicas the primary and each replica get a limiter of their own, sized like their pools,
+ * so reads on a replica never queue behind writes on the primary.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    static BeanPostProcessor connectionLimiter(@Value("${books.db.max-concurrency:10}") int maxConcurrency,
+                                               @Value("${books.db.acquire-timeout:30s}") Duration acquireTimeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // ReadReplicaConfig's router is ordered, so it is already in place
+                if (bean instanceof ReadReplicaConfig.RoutingDataSourceProxy routing)
+                    return new ReadReplicaConfig.RoutingDataSourceProxy(routing.getRouter().mapTargets((target, dataSource) ->
+                            new ConnectionLimitingDataSource(dataSource, target, maxConcurrency, acquireTimeout)));
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionLimitingDataSource))
+                    return new ConnectionLimitingDataSource(dataSource, maxConcurrency, acquireTimeout);
+                return bean;
+            }
+        };
+    }
+
+    // Hikari's own pool metrics (hikaricp.connections.*) are bound by the actuator through the wrapper
+    @Bean
+    MeterBinder connectionLimiterMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof ConnectionLimitingDataSource limiter)
+                limiter.bindTo(registry);
+            if (dataSource instanceof ReadReplicaConfig.RoutingDataSourceProxy routing) {
+                for (DataSource target : routing.getRouter().getTargets().values()) {
+                    if (target instanceof ConnectionLimitingDataSource limiter)
+                        limiter.bindTo(registry);
+                }
+            }
+        };
+    }
+}
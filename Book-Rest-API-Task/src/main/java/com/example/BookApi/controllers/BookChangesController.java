@@ -0,0 +1,81 @@
+package com.example.BookApi.controllers;
+
+import com.example.BookApi.classes.BookChangeEvent;
+import com.example.BookApi.services.BookChangeFeed;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * GET /books/changes streams create, update and delete events as they commit, as server-sent events or NDJSON.
+ * Clients resume with Last-Event-ID (SSE) or ?after=eventId, and get 410 Gone once that point has left the replay
+ * buffer or the ID comes from before a restart, at which point they reload the catalog and follow the feed from now.
+ */
+@RestController
+@Profile("!reactive")
+@RequestMapping("/books/changes")
+public class BookChangesController {
+    private final BookChangeFeed bookChangeFeed;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+
+    @Autowired
+    public BookChangesController(BookChangeFeed bookChangeFeed, ObjectMapper objectMapper,
+                                 @Value("${books.changes.timeout:30m}") Duration timeout) {
+        this.bookChangeFeed = bookChangeFeed;
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) String after,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        subscribe(emitter, lastEventId != null ? lastEventId : after, event -> emitter.send(SseEmitter.event()
+                .id(event.getEventId())
+                .name(event.getType().name().toLowerCase())
+                .data(event, MediaType.APPLICATION_JSON)));
+        return emitter;
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> streamChangesNdjson(@RequestParam(required = false) String after) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeoutMillis);
+        subscribe(emitter, after, event -> emitter.send(objectMapper.writeValueAsString(event) + "\n", MediaType.TEXT_PLAIN));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+
+    private void subscribe(ResponseBodyEmitter emitter, String after, EventWriter writer) {
+        BookChangeFeed.Subscription subscription = bookChangeFeed.subscribe(after, new BookChangeFeed.Sink() {
+            @Override
+            public void send(BookChangeEvent event) throws IOException {
+                writer.write(event);
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+    }
+
+    private interface EventWriter {
+        void write(BookChangeEvent event) throws IOException;
+    }
+}
@@ -1,54 +1,289 @@
 package com.example.BookApi.controllers;
 
 import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookCacheStats;
+import com.example.BookApi.classes.BookFields;
+import com.example.BookApi.classes.BookFieldsLookupResult;
+import com.example.BookApi.classes.BookFieldsPage;
+import com.example.BookApi.classes.BookFilter;
+import com.example.BookApi.classes.BookGroupStats;
+import com.example.BookApi.classes.BookImportResult;
+import com.example.BookApi.classes.BookIngestStatus;
+import com.example.BookApi.classes.BookLookupResult;
+import com.example.BookApi.classes.BookPage;
+import com.example.BookApi.exceptionHandler.BookIngestNotFoundException;
 import com.example.BookApi.exceptionHandler.BookNotFoundException;
+import com.example.BookApi.services.BookImportService;
+import com.example.BookApi.services.BookIngestQueue;
 import com.example.BookApi.services.BookService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/books")
 public class BookController {
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final BookIngestQueue bookIngestQueue;
+    private final ObjectMapper objectMapper;
+    private final BookEncodings bookEncodings;
 
     @Autowired
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, BookImportService bookImportService, BookIngestQueue bookIngestQueue,
+                          ObjectMapper objectMapper) {
         this.bookService = bookService;
+        this.bookImportService = bookImportService;
+        this.bookIngestQueue = bookIngestQueue;
+        this.objectMapper = objectMapper;
+        this.bookEncodings = new BookEncodings(objectMapper);
     }
 
     @GetMapping
-    public List<Book> getAllBooks() {
-        return bookService.getAllBooks();
+    public ResponseEntity<StreamingResponseBody> getAllBooks(BookFilter filter,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws HttpMediaTypeNotAcceptableException {
+        // Resolve the sort and encoding before the response starts so bad values still get a 400 or 406
+        filter.toSort();
+        MediaType contentType = bookEncodings.negotiate(accept);
+        String eTag = BookETags.forEncoding(catalogETag(), contentType);
+        if (BookETags.matches(ifNoneMatch, eTag))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = bookEncodings.createGenerator(contentType, outputStream)) {
+                generator.writeStartArray();
+                bookService.streamBooks(filter, book -> writeRow(generator, book));
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).contentType(contentType).body(body);
+    }
+
+    // ?fields=id,title selects only those columns and serializes only those properties
+    @GetMapping(params = {"fields", "!limit", "!ids"})
+    public ResponseEntity<StreamingResponseBody> getAllBookFields(BookFilter filter, @RequestParam String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws HttpMediaTypeNotAcceptableException {
+        filter.toSort();
+        MediaType contentType = bookEncodings.negotiate(accept);
+        BookFields selected = BookFields.parse(fields);
+        String eTag = BookETags.forEncoding(catalogETag(), contentType);
+        if (BookETags.matches(ifNoneMatch, eTag))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = bookEncodings.createGenerator(contentType, outputStream)) {
+                generator.writeStartArray();
+                bookService.streamBookFields(filter, selected, row -> writeRow(generator, row));
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).contentType(contentType).body(body);
+    }
+
+    @GetMapping(params = {"limit", "fields", "!ids"})
+    @StatementBudget(2)
+    public ResponseEntity<BookFieldsPage> getBookFieldsPage(BookFilter filter, @RequestParam(required = false) String after,
+            @RequestParam int limit, @RequestParam String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws HttpMediaTypeNotAcceptableException {
+        BookFields selected = BookFields.parse(fields);
+        return conditional(catalogETag(), ifNoneMatch, accept, () -> bookService.getBookFieldsPage(filter, after, limit, selected));
+    }
+
+    @GetMapping(params = {"limit", "!ids"})
+    @StatementBudget(2)
+    public ResponseEntity<BookPage> getBooksPage(BookFilter filter, @RequestParam(required = false) String after,
+            @RequestParam int limit, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws HttpMediaTypeNotAcceptableException {
+        return conditional(catalogETag(), ifNoneMatch, accept, () -> bookService.getBooksPage(filter, after, limit));
+    }
+
+    @GetMapping(params = {"ids", "!limit", "!after"})
+    @StatementBudget(2)
+    public ResponseEntity<BookLookupResult> getBooksByIds(@RequestParam List<Long> ids,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws HttpMediaTypeNotAcceptableException {
+        return conditional(catalogETag(), ifNoneMatch, accept, () -> bookService.getBooksByIds(ids));
+    }
+
+    // Looked-up books come from the cache, as for a single book only the serialization is narrowed
+    @GetMapping(params = {"ids", "fields", "!limit", "!after"})
+    @StatementBudget(2)
+    public ResponseEntity<BookFieldsLookupResult> getBookFieldsByIds(@RequestParam List<Long> ids, @RequestParam String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws HttpMediaTypeNotAcceptableException {
+        BookFields selected = BookFields.parse(fields);
+        return conditional(catalogETag(), ifNoneMatch, accept, () -> {
+            BookLookupResult result = bookService.getBooksByIds(ids);
+            return new BookFieldsLookupResult(result.getBooks().stream().map(selected::project).toList(), result.getMissingIds());
+        });
+    }
+
+    // The ID list already bounds the lookup, paging it would drop either the IDs or the cursor
+    @GetMapping(params = "ids")
+    public ResponseEntity<BookLookupResult> getBooksByIdsPage() {
+        throw new IllegalArgumentException("ids can't be combined with limit or after");
+    }
+
+    // Same lookup for ID lists too long for a query string
+    @PostMapping("/lookup")
+    @StatementBudget(1)
+    public BookLookupResult lookupBooks(@RequestBody List<Long> ids) {
+        return bookService.getBooksByIds(ids);
+    }
+
+    @GetMapping("/search")
+    public List<Book> searchBooks(@RequestParam("q") String query, @RequestParam(defaultValue = "20") int limit) {
+        return bookService.searchBooks(query, limit);
+    }
+
+    @GetMapping("/suggest")
+    public List<String> suggestBooks(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        return bookService.suggestBooks(prefix, limit);
+    }
+
+    // Count and price range per author or publication year, kept up to date on every write
+    @GetMapping("/stats")
+    public ResponseEntity<List<BookGroupStats>> getStatistics(@RequestParam String groupBy,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws HttpMediaTypeNotAcceptableException {
+        return conditional(catalogETag(), ifNoneMatch, accept, () -> bookService.getStatistics(groupBy));
+    }
+
+    @GetMapping("/cache/stats")
+    public BookCacheStats getCacheStats() {
+        return bookService.getCacheStats();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Book> getBookById(@PathVariable Long id) {
+    @StatementBudget(1)
+    public ResponseEntity<Book> getBookById(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws HttpMediaTypeNotAcceptableException {
+        Book book = bookService.getBookById(id)
+                .orElseThrow(() -> new BookNotFoundException(id));
+        return conditional(BookETags.bookETag(book), ifNoneMatch, accept, () -> book);
+    }
+
+    // Single books come from the cache, so only the serialization is narrowed to the selected fields
+    @GetMapping(value = "/{id}", params = "fields")
+    @StatementBudget(1)
+    public ResponseEntity<Map<String, Object>> getBookFieldsById(@PathVariable Long id, @RequestParam String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws HttpMediaTypeNotAcceptableException {
+        BookFields selected = BookFields.parse(fields);
         Book book = bookService.getBookById(id)
                 .orElseThrow(() -> new BookNotFoundException(id));
-        return ResponseEntity.ok(book);
+        return conditional(BookETags.bookETag(book), ifNoneMatch, accept, () -> selected.project(book));
     }
 
     @PostMapping
+    @StatementBudget(3)
     public ResponseEntity<Book> addBook(@Valid @RequestBody Book book) {
             Book createdBook = bookService.addBook(book);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdBook);
     }
 
+    // Prefer: respond-async queues the book for a batched write and answers 202 with where to follow it
+    @PostMapping(headers = "Prefer=respond-async")
+    public ResponseEntity<BookIngestStatus> queueBook(@Valid @RequestBody Book book) {
+        BookIngestStatus status = bookIngestQueue.submit(book);
+        return ResponseEntity.accepted()
+                .location(URI.create("/books/ingest/" + status.getTrackingId()))
+                .header("Preference-Applied", "respond-async")
+                .body(status);
+    }
+
+    @GetMapping("/ingest/{trackingId}")
+    public BookIngestStatus getIngestStatus(@PathVariable String trackingId) {
+        return bookIngestQueue.getStatus(trackingId)
+                .orElseThrow(() -> new BookIngestNotFoundException(trackingId));
+    }
+
+    // Accepts a JSON array or NDJSON, both are read one record at a time
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<List<BookImportResult>> importBooks(InputStream body) throws IOException {
+        try (MappingIterator<Book> books = objectMapper.readerFor(Book.class).readValues(body)) {
+            List<BookImportResult> results = bookImportService.importBooks(books);
+            boolean allCreated = results.stream().allMatch(result -> result.getStatus() == BookImportResult.Status.CREATED);
+            return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
+        }
+    }
+
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateBook(@PathVariable Long id,@Valid @RequestBody Book book) {
-            return ResponseEntity.ok(bookService.updateBook(id, book));
+    @StatementBudget(3)
+    public ResponseEntity<?> updateBook(@PathVariable Long id,@Valid @RequestBody Book book,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws HttpMediaTypeNotAcceptableException {
+            MediaType contentType = bookEncodings.negotiate(accept);
+            Book updatedBook = bookService.updateBook(id, book, BookETags.expectedVersion(id, ifMatch));
+            return tagged(BookETags.bookETag(updatedBook), contentType, updatedBook);
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    @StatementBudget(3)
+    public ResponseEntity<Book> patchBook(@PathVariable Long id, @RequestBody Map<String, Object> patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws HttpMediaTypeNotAcceptableException {
+        MediaType contentType = bookEncodings.negotiate(accept);
+        Book patchedBook = bookService.patchBook(id, patch, BookETags.expectedVersion(id, ifMatch));
+        return tagged(BookETags.bookETag(patchedBook), contentType, patchedBook);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteBook(@PathVariable Long id) {
-           bookService.deleteBook(id);
+    @StatementBudget(4)
+    public ResponseEntity<?> deleteBook(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+           bookService.deleteBook(id, BookETags.expectedVersion(id, ifMatch));
           return ResponseEntity.status(HttpStatus.OK).body("Book with ID " + id + " Deleted Successfully");
     }
 
+    private String catalogETag() {
+        return BookETags.catalogETag(bookService.getCatalogVersion());
+    }
+
+    // The encoding is negotiated here rather than by the message converters, as for the streamed lists,
+    // so the ETag can tell JSON, CBOR and Smile apart
+    private <T> ResponseEntity<T> conditional(String eTag, String ifNoneMatch, String accept, Supplier<T> body)
+            throws HttpMediaTypeNotAcceptableException {
+        MediaType contentType = bookEncodings.negotiate(accept);
+        String encodedETag = BookETags.forEncoding(eTag, contentType);
+        if (BookETags.matches(ifNoneMatch, encodedETag))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(encodedETag).varyBy(HttpHeaders.ACCEPT).build();
+        return tagged(eTag, contentType, body.get());
+    }
+
+    private static <T> ResponseEntity<T> tagged(String eTag, MediaType contentType, T body) {
+        return ResponseEntity.ok().eTag(BookETags.forEncoding(eTag, contentType)).varyBy(HttpHeaders.ACCEPT)
+                .contentType(contentType).body(body);
+    }
+
+    private void writeRow(JsonGenerator generator, Object row) {
+        try {
+            generator.writeObject(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
 }
@@ -0,0 +1,79 @@
+package com.example.BookApi.controllers;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.config.GzipETags;
+import com.example.BookApi.exceptionHandler.BookPreconditionFailedException;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+// ETag handling shared by the servlet controller and the reactive router
+final class BookETags {
+    private static final String CBOR_SUFFIX = "-cbor";
+    private static final String SMILE_SUFFIX = "-smile";
+
+    private BookETags() {
+    }
+
+    static String catalogETag(String catalogVersion) {
+        return "\"c" + catalogVersion + "\"";
+    }
+
+    static String bookETag(Book book) {
+        return "\"v" + book.getVersion() + "\"";
+    }
+
+    // JSON keeps the plain tag, CBOR and Smile get one of their own since they are different representations
+    static String forEncoding(String eTag, MediaType encoding) {
+        String suffix = encodingSuffix(encoding);
+        return suffix.isEmpty() ? eTag : eTag.substring(0, eTag.length() - 1) + suffix + "\"";
+    }
+
+    private static String encodingSuffix(MediaType encoding) {
+        if (MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(encoding))
+            return CBOR_SUFFIX;
+        if (BookEncodings.SMILE.equalsTypeAndSubtype(encoding))
+            return SMILE_SUFFIX;
+        return "";
+    }
+
+    static boolean matches(String header, String eTag) {
+        if (header == null)
+            return false;
+        String opaqueTag = opaqueTag(eTag);
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            // If-None-Match uses weak comparison, so W/"x" matches "x", as does the gzipped "x-gzip"
+            if (value.equals("*") || opaqueTag(value).equals(opaqueTag))
+                return true;
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String eTag) {
+        String opaqueTag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        String gzipped = GzipETags.SUFFIX + "\"";
+        return opaqueTag.endsWith(gzipped)
+                ? opaqueTag.substring(0, opaqueTag.length() - gzipped.length()) + "\"" : opaqueTag;
+    }
+
+    // Reads the version from an If-Match ETag of any encoding, null when the header is absent or "*"
+    static Long expectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*"))
+            return null;
+        String value = ifMatch.trim();
+        if (value.startsWith("\"v") && value.endsWith("\"") && value.length() > 3) {
+            String version = value.substring(2, value.length() - 1);
+            for (String suffix : List.of(GzipETags.SUFFIX, CBOR_SUFFIX, SMILE_SUFFIX)) {
+                if (version.endsWith(suffix))
+                    version = version.substring(0, version.length() - suffix.length());
+            }
+            try {
+                return Long.parseLong(version);
+            } catch (NumberFormatException ignored) {
+                // Falls through, an ETag we never issued can't match
+            }
+        }
+        throw new BookPreconditionFailedException(id);
+    }
+}
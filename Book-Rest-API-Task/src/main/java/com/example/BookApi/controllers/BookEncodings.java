@@ -0,0 +1,56 @@
+package com.example.BookApi.controllers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodings for the streamed book lists: JSON, CBOR and Smile, all sharing Spring Boot's ObjectMapper settings.
+ * Pages and single books are negotiated here too, so their ETag can name the encoding, and written by the message converters.
+ */
+final class BookEncodings {
+    static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    // In order of preference when the client accepts several equally
+    private static final List<MediaType> TYPES = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, SMILE);
+
+    private final ObjectMapper objectMapper;
+    // Binary mappers are copied on first use
+    private final Map<MediaType, ObjectMapper> mappers = new ConcurrentHashMap<>();
+
+    BookEncodings(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        mappers.put(MediaType.APPLICATION_JSON, objectMapper);
+    }
+
+    MediaType negotiate(String accept) throws HttpMediaTypeNotAcceptableException {
+        if (accept == null || accept.isBlank())
+            return MediaType.APPLICATION_JSON;
+        List<MediaType> accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : accepted) {
+            for (MediaType candidate : TYPES) {
+                if (type.getQualityValue() > 0 && type.includes(candidate))
+                    return candidate;
+            }
+        }
+        throw new HttpMediaTypeNotAcceptableException(TYPES);
+    }
+
+    JsonGenerator createGenerator(MediaType type, OutputStream outputStream) throws IOException {
+        ObjectMapper mapper = mappers.computeIfAbsent(type,
+                binary -> objectMapper.copyWith(binary.equals(SMILE) ? new SmileFactory() : new CBORFactory()));
+        return mapper.getFactory().createGenerator(outputStream).setCodec(mapper);
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.BookApi.controllers;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookFilter;
+import com.example.BookApi.exceptionHandler.AddBookCustomErrorResponse;
+import com.example.BookApi.exceptionHandler.BookNotFoundException;
+import com.example.BookApi.exceptionHandler.BookPreconditionFailedException;
+import com.example.BookApi.exceptionHandler.ErrorResponse;
+import com.example.BookApi.services.ReactiveBookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.NotAcceptableStatusException;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.queryParam;
+
+/**
+ * The /books contract of BookController as non-blocking router functions, active with the "reactive" profile.
+ * Error bodies match GlobalExceptionHandler so clients can't tell the two stacks apart.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("reactive")
+public class BookRouter {
+    private final ReactiveBookService bookService;
+    private final BookEncodings bookEncodings;
+
+    public BookRouter(ReactiveBookService bookService, ObjectMapper objectMapper) {
+        this.bookService = bookService;
+        this.bookEncodings = new BookEncodings(objectMapper);
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> bookRoutes() {
+        return RouterFunctions.route()
+                .GET("/books", queryParam("limit", limit -> true), this::getBooksPage)
+                .GET("/books", this::getAllBooks)
+                .GET("/books/{id}", this::getBookById)
+                .POST("/books", this::addBook)
+                .PUT("/books/{id}", this::updateBook)
+                .DELETE("/books/{id}", this::deleteBook)
+                // Turns exceptions thrown while building a response into error signals for onError
+                .filter((request, next) -> Mono.defer(() -> next.handle(request)))
+                .onError(BookNotFoundException.class, (e, request) -> error(HttpStatus.NOT_FOUND, e.getMessage()))
+                .onError(BookPreconditionFailedException.class, (e, request) -> error(HttpStatus.PRECONDITION_FAILED, e.getMessage()))
+                .onError(IllegalArgumentException.class, (e, request) -> error(HttpStatus.BAD_REQUEST, "Invalid Input"))
+                .onError(this::isMalformedJson, (e, request) -> error(HttpStatus.BAD_REQUEST, "Malformed JSON in request body"))
+                .onError(ConstraintViolationException.class, (e, request) -> validationError((ConstraintViolationException) e))
+                .build();
+    }
+
+    private Mono<ServerResponse> getAllBooks(ServerRequest request) {
+        BookFilter filter = filter(request);
+        // Resolve the sort before the response starts so a bad value still gets a 400
+        filter.toSort();
+        return bookService.getCatalogVersion().flatMap(version -> {
+            String eTag = BookETags.catalogETag(version);
+            if (BookETags.matches(request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH), eTag))
+                return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            return ServerResponse.ok().eTag(eTag).contentType(MediaType.APPLICATION_JSON)
+                    .body(bookService.streamBooks(filter), Book.class);
+        });
+    }
+
+    private Mono<ServerResponse> getBooksPage(ServerRequest request) {
+        MediaType contentType = negotiate(request);
+        String after = request.queryParam("after").orElse(null);
+        int limit = Integer.parseInt(request.queryParam("limit").orElseThrow());
+        return bookService.getCatalogVersion().flatMap(version -> {
+            String eTag = BookETags.forEncoding(BookETags.catalogETag(version), contentType);
+            if (BookETags.matches(request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH), eTag))
+                return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+            return bookService.getBooksPage(filter(request), after, limit)
+                    .flatMap(page -> ServerResponse.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).contentType(contentType).bodyValue(page));
+        });
+    }
+
+    private Mono<ServerResponse> getBookById(ServerRequest request) {
+        MediaType contentType = negotiate(request);
+        return bookService.getBookById(pathId(request))
+                .flatMap(book -> {
+                    String eTag = BookETags.forEncoding(BookETags.bookETag(book), contentType);
+                    if (BookETags.matches(request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH), eTag))
+                        return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+                    return ServerResponse.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).contentType(contentType).bodyValue(book);
+                });
+    }
+
+    private Mono<ServerResponse> addBook(ServerRequest request) {
+        return request.bodyToMono(Book.class)
+                .flatMap(bookService::addBook)
+                .flatMap(book -> ServerResponse.status(HttpStatus.CREATED).bodyValue(book));
+    }
+
+    private Mono<ServerResponse> updateBook(ServerRequest request) {
+        Long id = pathId(request);
+        Long expectedVersion = BookETags.expectedVersion(id, request.headers().firstHeader(HttpHeaders.IF_MATCH));
+        MediaType contentType = negotiate(request);
+        return request.bodyToMono(Book.class)
+                .flatMap(book -> bookService.updateBook(id, book, expectedVersion))
+                .flatMap(book -> ServerResponse.ok().eTag(BookETags.forEncoding(BookETags.bookETag(book), contentType))
+                        .varyBy(HttpHeaders.ACCEPT).contentType(contentType).bodyValue(book));
+    }
+
+    private Mono<ServerResponse> deleteBook(ServerRequest request) {
+        Long id = pathId(request);
+        Long expectedVersion = BookETags.expectedVersion(id, request.headers().firstHeader(HttpHeaders.IF_MATCH));
+        return bookService.deleteBook(id, expectedVersion)
+                .then(ServerResponse.ok().bodyValue("Book with ID " + id + " Deleted Successfully"));
+    }
+
+    // Negotiated here rather than by the codecs, as in BookController, so the ETag can tell the encodings apart
+    private MediaType negotiate(ServerRequest request) {
+        try {
+            return bookEncodings.negotiate(request.headers().firstHeader(HttpHeaders.ACCEPT));
+        } catch (HttpMediaTypeNotAcceptableException e) {
+            throw new NotAcceptableStatusException(e.getSupportedMediaTypes());
+        }
+    }
+
+    // Same query parameters Spring MVC binds onto BookFilter in BookController
+    private static BookFilter filter(ServerRequest request) {
+        BookFilter filter = new BookFilter();
+        filter.setMinPrice(param(request, "minPrice", Double::valueOf));
+        filter.setMaxPrice(param(request, "maxPrice", Double::valueOf));
+        filter.setFromYear(param(request, "fromYear", Integer::valueOf));
+        filter.setToYear(param(request, "toYear", Integer::valueOf));
+        request.queryParam("sort").ifPresent(filter::setSort);
+        return filter;
+    }
+
+    // NumberFormatException is an IllegalArgumentException, so bad numbers become a 400
+    private static <T> T param(ServerRequest request, String name, Function<String, T> parser) {
+        Optional<String> value = request.queryParam(name).filter(text -> !text.isBlank());
+        return value.map(parser).orElse(null);
+    }
+
+    private static Long pathId(ServerRequest request) {
+        return Long.valueOf(request.pathVariable("id"));
+    }
+
+    private boolean isMalformedJson(Throwable e) {
+        return e instanceof DecodingException
+                || (e instanceof ServerWebInputException && e.getCause() instanceof DecodingException);
+    }
+
+    private static Mono<ServerResponse> error(HttpStatus status, String message) {
+        return ServerResponse.status(status).bodyValue(new ErrorResponse(message, status.value()));
+    }
+
+    private static Mono<ServerResponse> validationError(ConstraintViolationException e) {
+        List<String> messages = e.getConstraintViolations().stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .toList();
+        return ServerResponse.badRequest().bodyValue(new AddBookCustomErrorResponse(messages, HttpStatus.BAD_REQUEST.value()));
+    }
+}
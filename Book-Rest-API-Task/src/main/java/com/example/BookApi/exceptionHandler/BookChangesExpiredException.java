@@ -0,0 +1,7 @@
+package com.example.BookApi.exceptionHandler;
+
+public class BookChangesExpiredException extends RuntimeException {
+    public BookChangesExpiredException(String after) {
+        super("Changes after event " + after + " are no longer available, reload the catalog");
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.BookApi.exceptionHandler;
+
+// Unknown tracking ID, or one whose status has expired
+public class BookIngestNotFoundException extends RuntimeException {
+    public BookIngestNotFoundException(String trackingId) {
+        super("No queued book with tracking ID " + trackingId, null, false, false);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.BookApi.exceptionHandler;
+
+public class BookIngestQueueFullException extends RuntimeException {
+    public BookIngestQueueFullException() {
+        super("Too many books waiting to be written, try again later", null, false, false);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.BookApi.exceptionHandler;
+
+public class BookIngestUnavailableException extends RuntimeException {
+    public BookIngestUnavailableException() {
+        super("Queued writes are not being accepted, try again later", null, false, false);
+    }
+}
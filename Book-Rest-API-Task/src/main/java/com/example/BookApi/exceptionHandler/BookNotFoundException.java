@@ -1,7 +1,8 @@
 package com.example.BookApi.exceptionHandler;
 
+// Thrown on every 404, skips stack trace capture since GlobalExceptionHandler only needs the message
 public class BookNotFoundException extends RuntimeException {
     public BookNotFoundException(Long id) {
-        super("Book with ID " + id + " not found");
+        super("Book with ID " + id + " not found", null, false, false);
     }
 }
@@ -0,0 +1,7 @@
+package com.example.BookApi.exceptionHandler;
+
+public class BookPreconditionFailedException extends RuntimeException {
+    public BookPreconditionFailedException(Long id) {
+        super("Book with ID " + id + " has been modified");
+    }
+}
@@ -1,7 +1,15 @@
 package com.example.BookApi.exceptionHandler;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.validation.FieldError;
@@ -17,6 +25,53 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
     }
 
+    @org.springframework.web.bind.annotation.ExceptionHandler(BookIngestNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleBookIngestNotFoundException(BookIngestNotFoundException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), HttpStatus.NOT_FOUND.value());
+        return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+    }
+
+    @org.springframework.web.bind.annotation.ExceptionHandler({BookPreconditionFailedException.class, ObjectOptimisticLockingFailureException.class})
+    public ResponseEntity<ErrorResponse> handlePreconditionFailedException(RuntimeException ex) {
+        String message = ex instanceof BookPreconditionFailedException ? ex.getMessage() : "Book has been modified concurrently";
+        ErrorResponse errorResponse = new ErrorResponse(message, HttpStatus.PRECONDITION_FAILED.value());
+        return new ResponseEntity<>(errorResponse, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    // The client must reload the catalog, the changes it asked for have left the replay buffer or predate a restart
+    @org.springframework.web.bind.annotation.ExceptionHandler(BookChangesExpiredException.class)
+    public ResponseEntity<ErrorResponse> handleBookChangesExpiredException(BookChangesExpiredException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), HttpStatus.GONE.value());
+        return ResponseEntity.status(HttpStatus.GONE).contentType(MediaType.APPLICATION_JSON).body(errorResponse);
+    }
+
+    // The write-behind queue is at books.ingest.capacity, the client should back off
+    @org.springframework.web.bind.annotation.ExceptionHandler(BookIngestQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleBookIngestQueueFullException(BookIngestQueueFullException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), HttpStatus.TOO_MANY_REQUESTS.value());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
+    // The write-behind queue isn't running, during startup or shutdown, another instance can take the write
+    @org.springframework.web.bind.annotation.ExceptionHandler(BookIngestUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleBookIngestUnavailableException(BookIngestUnavailableException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE.value());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
+    // No connection became free within books.db.acquire-timeout
+    @org.springframework.web.bind.annotation.ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<ErrorResponse> handleCannotCreateTransactionException(CannotCreateTransactionException ex) {
+        ErrorResponse errorResponse = new ErrorResponse("Database is busy, try again later", HttpStatus.SERVICE_UNAVAILABLE.value());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
     @org.springframework.web.bind.annotation.ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
         ErrorResponse errorResponse = new ErrorResponse("Invalid Input" +
@@ -24,6 +79,24 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    @org.springframework.web.bind.annotation.ExceptionHandler({JsonProcessingException.class, RuntimeJsonMappingException.class})
+    public ResponseEntity<ErrorResponse> handleMalformedJsonException(Exception ex) {
+        ErrorResponse errorResponse = new ErrorResponse("Malformed JSON in request body", HttpStatus.BAD_REQUEST.value());
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    @org.springframework.web.bind.annotation.ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<AddBookCustomErrorResponse> handleConstraintViolationException(ConstraintViolationException ex) {
+        List<String> errorMessages = ex.getConstraintViolations()
+                .stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.toList());
+
+        AddBookCustomErrorResponse errorResponse = new AddBookCustomErrorResponse(errorMessages, HttpStatus.BAD_REQUEST.value());
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
     @org.springframework.web.bind.annotation.ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<AddBookCustomErrorResponse> handleValidationExceptions(MethodArgumentNotValidException ex) {
 
@@ -0,0 +1,8 @@
+package com.example.BookApi.exceptionHandler;
+
+// Only thrown with books.statements.fail-over-budget, which the tests switch on
+public class StatementBudgetExceededException extends RuntimeException {
+    public StatementBudgetExceededException(int budget, String sql) {
+        super("Statement budget of " + budget + " exceeded by " + sql);
+    }
+}
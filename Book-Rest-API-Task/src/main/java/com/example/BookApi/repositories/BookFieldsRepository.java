@@ -0,0 +1,23 @@
+package com.example.BookApi.repositories;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookFields;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Queries selecting only some columns, each row mapped from property name to value
+public interface BookFieldsRepository {
+
+    // Rows always carry the ID as well, so a page knows where the next one starts
+    @Transactional(readOnly = true)
+    List<Map<String, Object>> findFields(Specification<Book> specification, Sort sort, BookFields fields, int limit);
+
+    // Must be consumed inside a transaction, like streamAllByOrderByIdAsc
+    @Transactional(readOnly = true)
+    Stream<Map<String, Object>> streamFields(Specification<Book> specification, Sort sort, BookFields fields);
+}
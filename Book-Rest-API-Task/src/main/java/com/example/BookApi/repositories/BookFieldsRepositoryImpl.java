@@ -0,0 +1,69 @@
+package com.example.BookApi.repositories;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookFields;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+// Tuple queries, so rows come back as plain values without entity instances or persistence context entries
+class BookFieldsRepositoryImpl implements BookFieldsRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFields(Specification<Book> specification, Sort sort, BookFields fields, int limit) {
+        return query(specification, sort, fields).setMaxResults(limit).setHint(HINT_CACHEABLE, true).getResultStream()
+                .map(tuple -> toRow(tuple, fields.getColumns(sort)))
+                .toList();
+    }
+
+    @Override
+    public Stream<Map<String, Object>> streamFields(Specification<Book> specification, Sort sort, BookFields fields) {
+        return query(specification, sort, fields)
+                .setHint(HINT_FETCH_SIZE, Integer.parseInt(BookRepository.STREAM_FETCH_SIZE))
+                .getResultStream()
+                .map(tuple -> toRow(tuple, fields.getNames()));
+    }
+
+    private TypedQuery<Tuple> query(Specification<Book> specification, Sort sort, BookFields fields) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<Book> root = query.from(Book.class);
+        List<Selection<?>> columns = fields.getColumns(sort).stream()
+                .<Selection<?>>map(column -> root.get(column).alias(column))
+                .toList();
+        query.multiselect(columns);
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null)
+            query.where(predicate);
+        query.orderBy(QueryUtils.toOrders(sort, root, builder));
+        return entityManager.createQuery(query);
+    }
+
+    private static Map<String, Object> toRow(Tuple tuple, List<String> names) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String name : names) {
+            row.put(name, tuple.get(name));
+        }
+        return row;
+    }
+}
@@ -1,7 +1,52 @@
 package com.example.BookApi.repositories;
 
 import com.example.BookApi.classes.Book;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
-}
\ No newline at end of file
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book>, BookFieldsRepository,
+        BookStreamRepository {
+
+    // Rows pulled from the driver per round trip while streaming the whole catalog
+    String STREAM_FETCH_SIZE = "500";
+
+    // Declared finders aren't read-only by default, marking them lets read replicas serve them
+    // Pages go through the query cache, which holds their IDs and drops them on any write to the book table
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Filtered pages only, filtered streams never touch the query cache and go through streamMatching
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    <S extends Book, R> R findBy(Specification<Book> spec, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction);
+
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    Stream<Book> streamAllByOrderByIdAsc();
+
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("select b.id from Book b")
+    Stream<Long> streamAllIds();
+
+    // Deletes without loading the row first, returns 0 when the ID or version doesn't match
+    @Modifying
+    @Query("delete from Book b where b.id = :id and b.version = :version")
+    int deleteByIdAndVersion(Long id, Long version);
+}
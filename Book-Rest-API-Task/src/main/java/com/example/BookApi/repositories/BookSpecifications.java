@@ -0,0 +1,52 @@
+package com.example.BookApi.repositories;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookCursor;
+import com.example.BookApi.classes.BookFilter;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BookSpecifications {
+
+    private BookSpecifications() {
+    }
+
+    public static Specification<Book> matches(BookFilter filter) {
+        return (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.getMinPrice() != null)
+                predicates.add(builder.greaterThanOrEqualTo(root.get("bookPrice"), filter.getMinPrice()));
+            if (filter.getMaxPrice() != null)
+                predicates.add(builder.lessThanOrEqualTo(root.get("bookPrice"), filter.getMaxPrice()));
+            if (filter.getFromYear() != null)
+                predicates.add(builder.greaterThanOrEqualTo(root.get("yearPublished"), filter.getFromYear()));
+            if (filter.getToYear() != null)
+                predicates.add(builder.lessThanOrEqualTo(root.get("yearPublished"), filter.getToYear()));
+            return builder.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    // Rows that come after the cursor in the filter's sort order
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Book> after(BookFilter filter, BookCursor cursor) {
+        return (root, query, builder) -> {
+            Path<Long> id = root.get("id");
+            if ("id".equals(filter.getSortProperty())) {
+                return filter.getSortDirection() == Sort.Direction.ASC
+                        ? builder.greaterThan(id, cursor.getId())
+                        : builder.lessThan(id, cursor.getId());
+            }
+            Path<Comparable> sortPath = root.get(filter.getSortProperty());
+            Comparable value = (Comparable) cursor.getSortValue();
+            Predicate beyondValue = filter.getSortDirection() == Sort.Direction.ASC
+                    ? builder.greaterThan(sortPath, value)
+                    : builder.lessThan(sortPath, value);
+            return builder.or(beyondValue, builder.and(builder.equal(sortPath, value), builder.greaterThan(id, cursor.getId())));
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.BookApi.repositories;
+
+import com.example.BookApi.classes.Book;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+// Filtered streams, which the fluent findBy can't give a fetch size
+public interface BookStreamRepository {
+
+    // Must be consumed inside a transaction, like streamAllByOrderByIdAsc
+    @Transactional(readOnly = true)
+    Stream<Book> streamMatching(Specification<Book> specification, Sort sort);
+}
@@ -0,0 +1,25 @@
+package com.example.BookApi.repositories;
+
+import com.example.BookApi.classes.Book;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Mono;
+
+// Non-blocking access to the book table for the "reactive" profile
+public interface ReactiveBookRepository extends R2dbcRepository<Book, Long> {
+
+    // Returns 0 when the ID or version doesn't match, the caller turns that into 404 or 412
+    @Modifying
+    @Query("update book set title = :title, author = :author, book_price = :bookPrice, year_published = :yearPublished, "
+            + "version = version + 1 where id = :id and version = :version")
+    Mono<Integer> updateIfVersion(Long id, String title, String author, Double bookPrice, Integer yearPublished, Long version);
+
+    @Modifying
+    @Query("delete from book where id = :id")
+    Mono<Integer> removeById(Long id);
+
+    @Modifying
+    @Query("delete from book where id = :id and version = :version")
+    Mono<Integer> deleteByIdAndVersion(Long id, Long version);
+}
@@ -0,0 +1,71 @@
+package com.example.BookApi.services;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookCacheStats;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache for book lookups by ID.
+ * Caffeine's W-TinyLFU policy keeps frequently requested titles resident and
+ * lets one-off lookups age out first.
+ */
+@Component
+public class BookCache {
+    private final Cache<Long, Book> cache;
+
+    @Autowired
+    public BookCache(@Value("${books.cache.max-size:10000}") long maxSize,
+                     @Value("${books.cache.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // Checks for an entry without counting a hit or miss
+    public boolean contains(Long id) {
+        return cache.policy().getIfPresentQuietly(id) != null;
+    }
+
+    // Returns null without caching anything when the loader finds no book
+    public Book get(Long id, Function<Long, Book> loader) {
+        return cache.get(id, loader);
+    }
+
+    // Loads every uncached ID with one call to the loader, IDs it doesn't return are left out of the result
+    public Map<Long, Book> getAll(Collection<Long> ids, Function<Set<? extends Long>, Map<Long, Book>> loader) {
+        return cache.getAll(ids, loader);
+    }
+
+    public void evict(Long id) {
+        cache.invalidate(id);
+        // Evict again once the transaction commits, a concurrent read may have reloaded the old row in between
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(id);
+                }
+            });
+        }
+    }
+
+    public BookCacheStats getStats() {
+        CacheStats stats = cache.stats();
+        return new BookCacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount(), cache.estimatedSize());
+    }
+}
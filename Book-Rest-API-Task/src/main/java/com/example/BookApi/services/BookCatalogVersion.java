@@ -0,0 +1,71 @@
+package com.example.BookApi.services;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the whole catalog, used as the ETag of collection responses. It lives in the single book_catalog row
+ * and every write bumps it in its own transaction, so instances sharing the database see each other's writes.
+ * Writes made outside the API have to bump it too. The row starts at the time it was created, so a recreated
+ * database never hands out a version an earlier one already used.
+ */
+@Component
+@Profile("!reactive")
+public class BookCatalogVersion {
+    static final String SELECT = "select version from book_catalog where id = 1";
+    static final String INCREMENT = "update book_catalog set version = version + 1 where id = 1";
+    static final String SEED = "insert into book_catalog (id, version) values (1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Writes committed through this instance only, enough to key in-process coalescing on without a query
+    private final AtomicLong localVersion = new AtomicLong();
+
+    public BookCatalogVersion(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        try {
+            jdbcTemplate.update(SEED, System.currentTimeMillis());
+        } catch (DuplicateKeyException e) {
+            // Seeded before, or by another instance starting at the same time
+        }
+    }
+
+    // Call last in the write's transaction, so every writer takes the row lock after its book rows
+    public void increment() {
+        if (jdbcTemplate.update(INCREMENT) == 0) {
+            seed();
+            jdbcTemplate.update(INCREMENT);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    localVersion.incrementAndGet();
+                }
+            });
+        } else {
+            localVersion.incrementAndGet();
+        }
+    }
+
+    public String current() {
+        List<Long> versions = jdbcTemplate.queryForList(SELECT, Long.class);
+        return versions.isEmpty() ? "0" : versions.get(0).toString();
+    }
+
+    public long localVersion() {
+        return localVersion.get();
+    }
+}
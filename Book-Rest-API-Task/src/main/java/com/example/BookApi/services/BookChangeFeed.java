@@ -0,0 +1,178 @@
+package com.example.BookApi.services;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookChangeEvent;
+import com.example.BookApi.exceptionHandler.BookChangesExpiredException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory feed of committed catalog changes. Every event gets the next sequence number and the latest
+ * replaySize events are kept, so a client that reconnects can pick up where it left off. Sequences restart with
+ * the process, so event IDs carry a per-process epoch as the catalog ETags do.
+ * Each subscriber is written to from its own bounded queue on the feed's writer threads, kept apart from the
+ * application task executor so blocked writes to slow clients never hold up streamed listings or the JPA bootstrap,
+ * and a committing write never waits for a client. A subscriber that falls replaySize events behind, or finds all
+ * writer threads busy with maxPendingWrites others waiting, is disconnected and resumes from its last event ID.
+ * Resuming from an ID of an earlier process, or one that has left the replay buffer, gets 410 Gone.
+ */
+@Component
+public class BookChangeFeed implements DisposableBean {
+
+    public interface Sink {
+        void send(BookChangeEvent event) throws IOException;
+
+        void close();
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final int replaySize;
+    private final Executor executor;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    // Guarded by this
+    private final ArrayDeque<BookChangeEvent> replay = new ArrayDeque<>();
+    private long sequence;
+
+    @Autowired
+    public BookChangeFeed(@Value("${books.changes.replay-size:10000}") int replaySize,
+                          @Value("${books.changes.writer-threads:4}") int writerThreads,
+                          @Value("${books.changes.max-pending-writes:1000}") int maxPendingWrites) {
+        this(replaySize, writerPool(writerThreads, maxPendingWrites));
+    }
+
+    public BookChangeFeed(int replaySize, Executor executor) {
+        this.replaySize = replaySize;
+        this.executor = executor;
+    }
+
+    private static ExecutorService writerPool(int threads, int maxPending) {
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(maxPending),
+                task -> new Thread(task, "books-changes-" + count.incrementAndGet()));
+    }
+
+    @Override
+    public void destroy() {
+        if (executor instanceof ExecutorService pool)
+            pool.shutdownNow();
+    }
+
+    public void publish(BookChangeEvent.Type type, Long id, Book book) {
+        synchronized (this) {
+            BookChangeEvent event = new BookChangeEvent(epoch, ++sequence, type, id, book);
+            replay.addLast(event);
+            if (replay.size() > replaySize)
+                replay.removeFirst();
+            // Offered under the lock, so a subscriber registering concurrently neither misses nor repeats an event
+            for (Subscription subscription : subscriptions) {
+                subscription.offer(event);
+            }
+        }
+    }
+
+    // Sends every buffered event after the given event ID, then new ones as they're published. Null starts from now
+    public synchronized Subscription subscribe(String after, Sink sink) {
+        long from = after == null ? sequence : sequenceOf(after);
+        long oldest = replay.isEmpty() ? sequence + 1 : replay.getFirst().getSequence();
+        if (from > sequence || from < oldest - 1)
+            throw new BookChangesExpiredException(after);
+        Subscription subscription = new Subscription(sink);
+        for (BookChangeEvent event : replay) {
+            if (event.getSequence() > from)
+                subscription.offer(event);
+        }
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    // Anything but an ID of this process's events is expired
+    private long sequenceOf(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator < 0 || !eventId.substring(0, separator).equals(epoch))
+            throw new BookChangesExpiredException(eventId);
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new BookChangesExpiredException(eventId);
+        }
+    }
+
+    public int getSubscribers() {
+        return subscriptions.size();
+    }
+
+    public class Subscription {
+        private final Sink sink;
+        private final BlockingQueue<BookChangeEvent> queue = new ArrayBlockingQueue<>(replaySize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean cancelled;
+
+        private Subscription(Sink sink) {
+            this.sink = sink;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        private void offer(BookChangeEvent event) {
+            if (cancelled)
+                return;
+            if (!queue.offer(event)) {
+                cancel();
+                sink.close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    cancel();
+                    sink.close();
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                try {
+                    BookChangeEvent event;
+                    while (!cancelled && (event = queue.poll()) != null) {
+                        sink.send(event);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // The client went away
+                    cancel();
+                } finally {
+                    draining.set(false);
+                }
+                // An event offered after the last poll but before draining was cleared would otherwise sit in the queue
+            } while (!cancelled && !queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.BookApi.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over the IDs of existing books, so lookups for unknown IDs can be answered without a query.
+ * It is only trusted up to the highest ID of the last scan of the book table: higher IDs may have been
+ * inserted by another instance, the reactive stack or plain SQL, and are always reported as possibly present.
+ * Rows inserted elsewhere below that ID are picked up by the next scan (see BookService.refreshIdFilter).
+ * Deleted IDs stay in the filter (plain Bloom filters can't remove entries) and simply fall through to the database.
+ * Until the startup scan has finished every ID is reported as possibly present.
+ */
+@Component
+public class BookIdFilter {
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile boolean ready;
+    private volatile long highestScannedId;
+
+    @Autowired
+    public BookIdFilter(@Value("${books.id-filter.expected-ids:1000000}") long expectedIds,
+                        @Value("${books.id-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        long optimalBits = (long) Math.ceil(-expectedIds * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.max(64, (optimalBits + 63) / 64 * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedIds * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (bitCount / 64));
+    }
+
+    // Called once every existing ID has been added, and again after each later scan
+    public void markReady(long highestScannedId) {
+        this.highestScannedId = highestScannedId;
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void add(Long id) {
+        long hash1 = mix(id);
+        long hash2 = mix(hash1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            long mask = 1L << bit;
+            bits.accumulateAndGet((int) (bit >>> 6), mask, (current, update) -> current | update);
+        }
+    }
+
+    public boolean mightContain(Long id) {
+        if (!ready || id > highestScannedId)
+            return true;
+        long hash1 = mix(id);
+        long hash2 = mix(hash1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    // SplitMix64 finalizer, spreads sequential IDs across the whole bit array
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.BookApi.services;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookChangeEvent;
+import com.example.BookApi.classes.BookImportResult;
+import com.example.BookApi.repositories.BookRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@Profile("!reactive")
+public class BookImportService {
+    private final BookRepository bookRepository;
+    private final BookIdFilter bookIdFilter;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookStatistics bookStatistics;
+    private final BookCatalogVersion bookCatalogVersion;
+    private final BookChangeFeed bookChangeFeed;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    @Autowired
+    public BookImportService(BookRepository bookRepository, BookIdFilter bookIdFilter, BookSearchIndex bookSearchIndex,
+                             BookStatistics bookStatistics, BookCatalogVersion bookCatalogVersion, BookChangeFeed bookChangeFeed,
+                             EntityManager entityManager, Validator validator,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${books.import.batch-size:500}") int batchSize) {
+        this.bookRepository = bookRepository;
+        this.bookIdFilter = bookIdFilter;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookStatistics = bookStatistics;
+        this.bookCatalogVersion = bookCatalogVersion;
+        this.bookChangeFeed = bookChangeFeed;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Measured
+    public List<BookImportResult> importBooks(Iterator<Book> books) {
+        List<BookImportResult> results = new ArrayList<>();
+        List<Book> batch = new ArrayList<>(batchSize);
+        List<Integer> batchIndexes = new ArrayList<>(batchSize);
+        int index = 0;
+        while (books.hasNext()) {
+            Book book = books.next();
+            Set<ConstraintViolation<Book>> violations = validator.validate(book);
+            if (violations.isEmpty()) {
+                // Imports always create new rows, client-supplied IDs would turn persist into merge
+                book.setId(null);
+                batch.add(book);
+                batchIndexes.add(index);
+                results.add(null);
+            } else {
+                results.add(BookImportResult.invalid(index, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .toList()));
+            }
+            index++;
+            if (batch.size() == batchSize) {
+                insertBatch(batch, batchIndexes, results);
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertBatch(batch, batchIndexes, results);
+        }
+        return results;
+    }
+
+    private void insertBatch(List<Book> batch, List<Integer> batchIndexes, List<BookImportResult> results) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                bookRepository.saveAll(batch);
+                bookRepository.flush();
+                bookCatalogVersion.increment();
+                // Keep the persistence context at one batch worth of entities
+                entityManager.clear();
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                int index = batchIndexes.get(i);
+                bookIdFilter.add(batch.get(i).getId());
+                bookSearchIndex.index(batch.get(i));
+                bookStatistics.index(batch.get(i));
+                bookChangeFeed.publish(BookChangeEvent.Type.CREATED, batch.get(i).getId(), batch.get(i));
+                results.set(index, BookImportResult.created(index, batch.get(i).getId()));
+            }
+        } catch (DataAccessException | PersistenceException e) {
+            for (int index : batchIndexes) {
+                results.set(index, BookImportResult.failed(index, "Database error occurred while importing the book."));
+            }
+        }
+        batch.clear();
+        batchIndexes.clear();
+    }
+}
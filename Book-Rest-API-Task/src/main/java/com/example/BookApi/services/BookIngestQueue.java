@@ -0,0 +1,176 @@
+package com.example.BookApi.services;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookImportResult;
+import com.example.BookApi.classes.BookIngestStatus;
+import com.example.BookApi.exceptionHandler.BookIngestQueueFullException;
+import com.example.BookApi.exceptionHandler.BookIngestUnavailableException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind queue for POST /books with Prefer: respond-async. Books wait in a bounded queue and one writer
+ * thread takes whatever has piled up, up to maxBatch, and inserts it through BookImportService, so a burst
+ * turns into a few multi-row transactions instead of a commit per request. A full queue is refused rather
+ * than blocking the request thread, and so is every book while the queue isn't running. Statuses are looked up by tracking ID until statusTtl after the last change,
+ * at most statusMaxSize of them are kept.
+ * On shutdown, after the web server has stopped taking requests, the writer empties the queue before exiting.
+ * Exposed as books.ingest.queued and books.ingest.rejected.
+ */
+@Service
+@Profile("!reactive")
+public class BookIngestQueue implements SmartLifecycle, MeterBinder {
+
+    // Below the web server's own lifecycle phases, so it stops only once no more requests come in
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private record Pending(String trackingId, Book book) {
+    }
+
+    private final BookImportService bookImportService;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatch;
+    private final Duration drainTimeout;
+    private final Cache<String, BookIngestStatus> statuses;
+    // Submissions share it, stopping takes it exclusively so nothing is queued after the writer's last look
+    private final ReadWriteLock accepting = new ReentrantReadWriteLock();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile boolean running;
+    private Thread writer;
+
+    @Autowired
+    public BookIngestQueue(BookImportService bookImportService,
+                           @Value("${books.ingest.capacity:10000}") int capacity,
+                           @Value("${books.ingest.max-batch:500}") int maxBatch,
+                           @Value("${books.ingest.status-ttl:1h}") Duration statusTtl,
+                           @Value("${books.ingest.status-max-size:100000}") long statusMaxSize,
+                           @Value("${books.ingest.drain-timeout:30s}") Duration drainTimeout) {
+        this.bookImportService = bookImportService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.drainTimeout = drainTimeout;
+        this.statuses = Caffeine.newBuilder().maximumSize(statusMaxSize).expireAfterWrite(statusTtl).build();
+    }
+
+    public BookIngestStatus submit(Book book) {
+        accepting.readLock().lock();
+        try {
+            // Not started yet or shutting down, unlike a full queue this isn't the client's load to back off from
+            if (!running)
+                throw new BookIngestUnavailableException();
+            String trackingId = UUID.randomUUID().toString();
+            BookIngestStatus status = BookIngestStatus.queued(trackingId);
+            // Recorded before queueing, the writer may finish the book before offer returns
+            statuses.put(trackingId, status);
+            if (!queue.offer(new Pending(trackingId, book))) {
+                statuses.invalidate(trackingId);
+                rejected.incrementAndGet();
+                throw new BookIngestQueueFullException();
+            }
+            return status;
+        } finally {
+            accepting.readLock().unlock();
+        }
+    }
+
+    public Optional<BookIngestStatus> getStatus(String trackingId) {
+        return Optional.ofNullable(statuses.getIfPresent(trackingId));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = new Thread(this::drain, "books-ingest");
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        accepting.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            accepting.writeLock().unlock();
+        }
+        try {
+            writer.join(drainTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("books.ingest.queued", queue, BlockingQueue::size)
+                .description("Books accepted with 202 and not yet written")
+                .register(registry);
+        FunctionCounter.builder("books.ingest.rejected", rejected, AtomicLong::get)
+                .description("Books refused with 429 because the queue was full")
+                .register(registry);
+    }
+
+    // Keeps going after stop until the queue is empty
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        try {
+            List<BookImportResult> results = bookImportService.importBooks(batch.stream().map(Pending::book).iterator());
+            for (int i = 0; i < batch.size(); i++) {
+                statuses.put(batch.get(i).trackingId(), BookIngestStatus.of(batch.get(i).trackingId(), results.get(i)));
+            }
+        } catch (RuntimeException e) {
+            // Keeps the writer alive, the books of this batch are reported as failed
+            for (Pending pending : batch) {
+                statuses.put(pending.trackingId(), BookIngestStatus.failed(pending.trackingId(),
+                        "Database error occurred while adding the book."));
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.BookApi.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight loading: while a load for a key is running, callers asking for the same key wait for it
+ * and share its result or exception instead of querying the database again. Nothing is kept once the
+ * load finishes, so a caller arriving afterwards always starts a fresh one.
+ * Exposed as books.coalescer.calls, tagged with the operation and whether the call loaded or was collapsed.
+ */
+@Component
+public class BookLoadCoalescer implements MeterBinder {
+    private final ConcurrentMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Calls> calls = new ConcurrentHashMap<>();
+    private volatile MeterRegistry registry;
+
+    @SuppressWarnings("unchecked")
+    public <T> T load(String operation, Object key, Supplier<T> loader) {
+        Calls counts = calls(operation);
+        Key inFlightKey = new Key(operation, key);
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(inFlightKey, own);
+        if (running != null) {
+            counts.collapsed.increment();
+            return (T) join(running);
+        }
+        counts.loaded.increment();
+        try {
+            T result = loader.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(inFlightKey, own);
+        }
+    }
+
+    public long getCollapsed(String operation) {
+        return calls(operation).collapsed.sum();
+    }
+
+    public long getLoaded(String operation) {
+        return calls(operation).loaded.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        calls.forEach((operation, counts) -> counts.register(operation, registry));
+    }
+
+    // Rethrows the leader's exception as is, so followers fail the same way the leader did
+    private static Object join(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            if (e.getCause() instanceof Error error)
+                throw error;
+            throw e;
+        }
+    }
+
+    private Calls calls(String operation) {
+        return calls.computeIfAbsent(operation, name -> {
+            Calls counts = new Calls();
+            MeterRegistry meterRegistry = registry;
+            if (meterRegistry != null)
+                counts.register(name, meterRegistry);
+            return counts;
+        });
+    }
+
+    private record Key(String operation, Object key) {
+    }
+
+    private static final class Calls {
+        final LongAdder loaded = new LongAdder();
+        final LongAdder collapsed = new LongAdder();
+
+        void register(String operation, MeterRegistry registry) {
+            for (String result : List.of("loaded", "collapsed")) {
+                FunctionCounter.builder("books.coalescer.calls", this,
+                                calls -> (result.equals("loaded") ? calls.loaded : calls.collapsed).sum())
+                        .description("Lookups that queried the database or shared a concurrent identical query")
+                        .tag("operation", operation)
+                        .tag("result", result)
+                        .register(registry);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.BookApi.services;
+
+import com.example.BookApi.classes.BookFieldsPage;
+import com.example.BookApi.classes.BookLookupResult;
+import com.example.BookApi.classes.BookPage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.TransactionException;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Records latency, errors and returned rows for every @Measured service method. Runs outside the
+ * transaction, so commit time and failures raised while flushing are included.
+ * Timers publish histogram buckets and leave percentile math to the scraper, which keeps recording cheap.
+ */
+public class BookMetrics implements MethodInterceptor {
+    private final Supplier<MeterRegistry> registry;
+    private final ConcurrentMap<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public BookMetrics(Supplier<MeterRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Meters operation = meters.computeIfAbsent(invocation.getMethod().getName(), this::register);
+        LongAdder streamedRows = countStreamedRows(invocation.getMethod().getParameterTypes(), invocation.getArguments());
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            operation.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            long rows = streamedRows != null ? streamedRows.sum() : rowsIn(result);
+            if (rows >= 0)
+                operation.rows.record(rows);
+            return result;
+        } catch (Throwable e) {
+            operation.failure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            Counter.builder("books.operation.errors")
+                    .description("Failed BookService calls by root cause")
+                    .tag("operation", operation.name)
+                    .tag("cause", cause(e))
+                    .register(registry.get())
+                    .increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Names the failure after the first database or transaction exception in the cause chain,
+     * since the service wraps those in a plain RuntimeException. Anything else is named after itself.
+     */
+    static String cause(Throwable e) {
+        for (Throwable current = e; current != null; current = current.getCause()) {
+            if (current instanceof DataAccessException || current instanceof TransactionException)
+                return current.getClass().getSimpleName();
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    // Returns -1 for results that aren't rows, such as the catalog version
+    private static long rowsIn(Object result) {
+        if (result instanceof Collection<?> collection)
+            return collection.size();
+        if (result instanceof BookPage page)
+            return page.getBooks().size();
+        if (result instanceof BookFieldsPage page)
+            return page.getBooks().size();
+        if (result instanceof BookLookupResult lookup)
+            return lookup.getBooks().size();
+        if (result instanceof Optional<?> optional)
+            return optional.isPresent() ? 1 : 0;
+        return -1;
+    }
+
+    // Streaming methods hand rows to a consumer instead of returning them, so count what passes through it
+    @SuppressWarnings("unchecked")
+    private static LongAdder countStreamedRows(Class<?>[] parameterTypes, Object[] arguments) {
+        for (int i = 0; i < arguments.length; i++) {
+            // Match on the declared type, an Iterator argument may happen to implement Consumer as well
+            if (parameterTypes[i] == Consumer.class && arguments[i] instanceof Consumer<?> consumer) {
+                LongAdder rows = new LongAdder();
+                Consumer<Object> target = (Consumer<Object>) consumer;
+                arguments[i] = (Consumer<Object>) row -> {
+                    rows.increment();
+                    target.accept(row);
+                };
+                return rows;
+            }
+        }
+        return null;
+    }
+
+    private Meters register(String name) {
+        MeterRegistry meterRegistry = registry.get();
+        return new Meters(name,
+                timer(name, "success").register(meterRegistry),
+                timer(name, "error").register(meterRegistry),
+                DistributionSummary.builder("books.rows.returned")
+                        .description("Books returned per BookService call")
+                        .tag("operation", name)
+                        .register(meterRegistry));
+    }
+
+    private static Timer.Builder timer(String name, String outcome) {
+        return Timer.builder("books.operation")
+                .description("BookService call latency")
+                .tag("operation", name)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30));
+    }
+
+    private record Meters(String name, Timer success, Timer failure, DistributionSummary rows) {
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.BookApi.services;
+
+import com.example.BookApi.classes.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index and prefix trie over book titles and authors.
+ * Keeps its own copy of every indexed book so search results never need a query.
+ * Writes take an exclusive lock, searches share a read lock.
+ */
+@Component
+public class BookSearchIndex {
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final int TITLE_WEIGHT = 2;
+    private static final int AUTHOR_WEIGHT = 1;
+
+    private final Map<Long, Book> books = new HashMap<>();
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private final TrieNode suggestions = new TrieNode();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void index(Book book) {
+        Book copy = new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getBookPrice(), book.getYearPublished());
+        lock.writeLock().lock();
+        try {
+            Book previous = books.put(copy.getId(), copy);
+            if (previous != null)
+                unindex(previous);
+            addTerms(copy);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Book previous = books.remove(id);
+            if (previous != null)
+                unindex(previous);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Books containing every term of the query, best matches first.
+     * A term scores its field weight times its inverse document frequency, so rare words count for more.
+     */
+    public List<Book> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty())
+            return List.of();
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (String term : new LinkedHashSet<>(terms)) {
+                Map<Long, Integer> matches = postings.get(term);
+                if (matches == null)
+                    return List.of();
+                double idf = Math.log(1.0 + (double) books.size() / matches.size());
+                Map<Long, Double> termScores = new HashMap<>();
+                for (Map.Entry<Long, Integer> match : matches.entrySet()) {
+                    if (scores == null || scores.containsKey(match.getKey()))
+                        termScores.put(match.getKey(), (scores == null ? 0.0 : scores.get(match.getKey())) + match.getValue() * idf);
+                }
+                scores = termScores;
+            }
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .map(entry -> copyOf(books.get(entry.getKey())))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Titles and authors starting with the prefix, or with a later word starting with it, most common first
+    public List<String> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty())
+            return List.of();
+        lock.readLock().lock();
+        try {
+            TrieNode node = suggestions;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+            }
+            if (node == null)
+                return List.of();
+            return node.top.stream()
+                    .limit(Math.min(limit, MAX_SUGGESTIONS))
+                    .map(Suggestion::phrase)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addTerms(Book book) {
+        updatePostings(book, 1);
+        updateSuggestions(book.getTitle(), 1);
+        updateSuggestions(book.getAuthor(), 1);
+    }
+
+    private void unindex(Book book) {
+        updatePostings(book, -1);
+        updateSuggestions(book.getTitle(), -1);
+        updateSuggestions(book.getAuthor(), -1);
+    }
+
+    private void updatePostings(Book book, int direction) {
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(book.getTitle()).forEach(term -> weights.merge(term, TITLE_WEIGHT, Integer::sum));
+        tokenize(book.getAuthor()).forEach(term -> weights.merge(term, AUTHOR_WEIGHT, Integer::sum));
+        weights.forEach((term, weight) -> {
+            if (direction > 0) {
+                postings.computeIfAbsent(term, key -> new HashMap<>()).put(book.getId(), weight);
+            } else {
+                Map<Long, Integer> matches = postings.get(term);
+                matches.remove(book.getId());
+                if (matches.isEmpty())
+                    postings.remove(term);
+            }
+        });
+    }
+
+    private void updateSuggestions(String phrase, int delta) {
+        if (phrase == null || phrase.isBlank())
+            return;
+        String display = phrase.trim();
+        String key = normalize(display);
+        // Register the phrase under every word boundary so "cormen" also suggests "Thomas H. Cormen"
+        Set<String> suffixes = new LinkedHashSet<>();
+        for (int i = 0; i < key.length(); i++) {
+            if (i == 0 || key.charAt(i - 1) == ' ')
+                suffixes.add(key.substring(i));
+        }
+        for (String suffix : suffixes) {
+            updatePath(suffix, display, delta);
+        }
+    }
+
+    private void updatePath(String key, String display, int delta) {
+        Deque<TrieNode> path = new ArrayDeque<>();
+        TrieNode node = suggestions;
+        path.push(node);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new TrieNode());
+            path.push(node);
+        }
+        node.phrases.merge(display, delta, Integer::sum);
+        node.phrases.remove(display, 0);
+        // Refresh the cached top suggestions from the changed node up to the root
+        TrieNode child = null;
+        int depth = key.length();
+        for (TrieNode current : path) {
+            if (child != null && child.isEmpty())
+                current.children.remove(key.charAt(depth));
+            current.refreshTop();
+            child = current;
+            depth--;
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null)
+            return List.of();
+        List<String> terms = new ArrayList<>();
+        for (String term : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!term.isEmpty())
+                terms.add(term);
+        }
+        return terms;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    private static Book copyOf(Book book) {
+        return new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getBookPrice(), book.getYearPublished());
+    }
+
+    private record Suggestion(String phrase, int count) {
+        static final Comparator<Suggestion> ORDER = Comparator.comparingInt(Suggestion::count).reversed()
+                .thenComparing(Suggestion::phrase);
+    }
+
+    private static class TrieNode {
+        final Map<Character, TrieNode> children = new HashMap<>();
+        // Phrases ending at this node and the number of books carrying each one
+        final Map<String, Integer> phrases = new HashMap<>();
+        List<Suggestion> top = List.of();
+
+        boolean isEmpty() {
+            return children.isEmpty() && phrases.isEmpty();
+        }
+
+        void refreshTop() {
+            Map<String, Integer> candidates = new HashMap<>(phrases);
+            for (TrieNode child : children.values()) {
+                // The same phrase can reach a node through several suffixes, keep the highest count
+                child.top.forEach(suggestion -> candidates.merge(suggestion.phrase(), suggestion.count(), Math::max));
+            }
+            top = candidates.entrySet().stream()
+                    .map(entry -> new Suggestion(entry.getKey(), entry.getValue()))
+                    .sorted(Suggestion.ORDER)
+                    .limit(MAX_SUGGESTIONS)
+                    .toList();
+        }
+    }
+}
@@ -1,24 +1,116 @@
 package com.example.BookApi.services;
 
 import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookCacheStats;
+import com.example.BookApi.classes.BookChangeEvent;
+import com.example.BookApi.classes.BookCursor;
+import com.example.BookApi.classes.BookFields;
+import com.example.BookApi.classes.BookFieldsPage;
+import com.example.BookApi.classes.BookFilter;
+import com.example.BookApi.classes.BookGroupStats;
+import com.example.BookApi.classes.BookLookupResult;
+import com.example.BookApi.classes.BookPage;
 import com.example.BookApi.exceptionHandler.BookNotFoundException;
+import com.example.BookApi.exceptionHandler.BookPreconditionFailedException;
 import com.example.BookApi.repositories.BookRepository;
-import jakarta.transaction.Transactional;
+import com.example.BookApi.repositories.BookSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Profile("!reactive")
 public class BookService {
+    public static final int MAX_PAGE_SIZE = 1000;
+
     private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final BookCache bookCache;
+    private final BookIdFilter bookIdFilter;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookStatistics bookStatistics;
+    private final BookCatalogVersion bookCatalogVersion;
+    private final Validator validator;
+    private final BookLoadCoalescer bookLoadCoalescer;
+    private final BookChangeFeed bookChangeFeed;
 
     @Autowired
-    BookService(BookRepository bookRepository) {
+    BookService(BookRepository bookRepository, EntityManager entityManager, BookCache bookCache,
+                BookIdFilter bookIdFilter, BookSearchIndex bookSearchIndex, BookStatistics bookStatistics,
+                BookCatalogVersion bookCatalogVersion,
+                Validator validator, BookLoadCoalescer bookLoadCoalescer,
+                BookChangeFeed bookChangeFeed) {
             this.bookRepository = bookRepository;
+            this.entityManager = entityManager;
+            this.bookCache = bookCache;
+            this.bookIdFilter = bookIdFilter;
+            this.bookSearchIndex = bookSearchIndex;
+            this.bookStatistics = bookStatistics;
+            this.bookCatalogVersion = bookCatalogVersion;
+            this.validator = validator;
+            this.bookLoadCoalescer = bookLoadCoalescer;
+            this.bookChangeFeed = bookChangeFeed;
+    }
+
+    // Fills the in-memory indexes with one pass over the catalog
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void initializeIndexes() {
+        long[] highestId = {0};
+        streamBooks(new BookFilter(), book -> {
+            bookIdFilter.add(book.getId());
+            bookSearchIndex.index(book);
+            bookStatistics.index(book);
+            highestId[0] = Math.max(highestId[0], book.getId());
+        });
+        bookIdFilter.markReady(highestId[0]);
+    }
+
+    // Adds the IDs written elsewhere since the last scan, the ones below its highest ID would read as missing
+    @Scheduled(initialDelayString = "${books.id-filter.refresh-interval:PT10M}", fixedDelayString = "${books.id-filter.refresh-interval:PT10M}")
+    @Transactional(readOnly = true)
+    public void refreshIdFilter() {
+        if (!bookIdFilter.isReady())
+            return;
+        long[] highestId = {0};
+        try (Stream<Long> ids = bookRepository.streamAllIds()) {
+            ids.forEach(id -> {
+                bookIdFilter.add(id);
+                highestId[0] = Math.max(highestId[0], id);
+            });
+        } catch (DataAccessException e) {
+            throw new RuntimeException("Database error occurred while streaming book IDs.", e);
+        }
+        bookIdFilter.markReady(highestId[0]);
     }
+
+    @Measured
     public List<Book> getAllBooks() {
         try {
             return bookRepository.findAll();
@@ -27,37 +119,172 @@ public class BookService {
         }
     }
 
+    @Measured
+    public BookPage getBooksPage(BookFilter filter, String after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE)
+            throw new IllegalArgumentException("Page limit must be between 1 and " + MAX_PAGE_SIZE);
+        // Identical concurrent requests share one query, keyed on the writes committed through this instance so
+        // nobody joins a query that started before a write they've already seen committed here
+        BookCursor cursor = after == null ? null : BookCursor.parse(filter, after);
+        List<Object> key = Arrays.asList(filter, after, limit, bookCatalogVersion.localVersion());
+        return bookLoadCoalescer.load("getBooksPage", key, () -> loadBooksPage(filter, cursor, limit));
+    }
+
+    // Same pages holding only the selected fields, read with a query that selects just those columns
+    @Measured
+    public BookFieldsPage getBookFieldsPage(BookFilter filter, String after, int limit, BookFields fields) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE)
+            throw new IllegalArgumentException("Page limit must be between 1 and " + MAX_PAGE_SIZE);
+        BookCursor cursor = after == null ? null : BookCursor.parse(filter, after);
+        List<Object> key = Arrays.asList(filter, after, limit, fields, bookCatalogVersion.localVersion());
+        return bookLoadCoalescer.load("getBookFieldsPage", key, () -> {
+            try {
+                Specification<Book> specification = BookSpecifications.matches(filter);
+                if (cursor != null)
+                    specification = specification.and(BookSpecifications.after(filter, cursor));
+                List<Map<String, Object>> rows = bookRepository.findFields(specification, filter.toSort(), fields, limit + 1);
+                String nextCursor = rows.size() > limit ? BookCursor.of(filter, rows.get(limit - 1)).toString() : null;
+                List<Map<String, Object>> page = rows.size() > limit ? rows.subList(0, limit) : rows;
+                page.forEach(row -> row.keySet().retainAll(fields.getNames()));
+                return new BookFieldsPage(page, nextCursor);
+            } catch (DataAccessException e) {
+                throw new RuntimeException("Database error occurred while fetching books.", e);
+            }
+        });
+    }
+
+    private BookPage loadBooksPage(BookFilter filter, BookCursor after, int limit) {
+        try {
+            // Fetch one extra row to know whether another page exists without a count query
+            List<Book> books;
+            if (filter.isDefault()) {
+                books = bookRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after.getId(), Limit.of(limit + 1));
+            } else {
+                Specification<Book> specification = BookSpecifications.matches(filter);
+                if (after != null)
+                    specification = specification.and(BookSpecifications.after(filter, after));
+                books = bookRepository.findBy(specification, query -> query.sortBy(filter.toSort()).limit(limit + 1).all());
+            }
+            if (books.size() <= limit)
+                return new BookPage(books, null);
+            List<Book> page = books.subList(0, limit);
+            return new BookPage(page, BookCursor.of(filter, page.get(limit - 1)).toString());
+        } catch (DataAccessException e) {
+            throw new RuntimeException("Database error occurred while fetching books.", e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    @Measured
+    public void streamBooks(BookFilter filter, Consumer<Book> consumer) {
+        try (Stream<Book> books = filter.isDefault()
+                ? bookRepository.streamAllByOrderByIdAsc()
+                : bookRepository.streamMatching(BookSpecifications.matches(filter), filter.toSort())) {
+            books.forEach(book -> {
+                consumer.accept(book);
+                // Detach once written so the persistence context doesn't grow with the catalog
+                entityManager.detach(book);
+            });
+        } catch (DataAccessException e) {
+            throw new RuntimeException("Database error occurred while streaming books.", e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    @Measured
+    public void streamBookFields(BookFilter filter, BookFields fields, Consumer<Map<String, Object>> consumer) {
+        try (Stream<Map<String, Object>> rows = bookRepository.streamFields(BookSpecifications.matches(filter), filter.toSort(), fields)) {
+            rows.forEach(consumer);
+        } catch (DataAccessException e) {
+            throw new RuntimeException("Database error occurred while streaming books.", e);
+        }
+    }
+
+    @Measured
     public Optional<Book> getBookById(Long id) {
+        if (!bookIdFilter.mightContain(id))
+            throw new BookNotFoundException(id);
         try {
-            if (bookRepository.existsById(id))
-                return bookRepository.findById(id);
-            else
+            Function<Long, Book> loader = key -> bookRepository.findById(key).orElse(null);
+            // Concurrent misses for the same ID wait for one load instead of each querying the database
+            Book book = bookCache.contains(id) ? bookCache.get(id, loader)
+                    : bookLoadCoalescer.load("getBookById", List.of(id, bookCatalogVersion.localVersion()), () -> bookCache.get(id, loader));
+            if (book == null)
                 throw new BookNotFoundException(id);
+            return Optional.of(book);
         } catch (DataAccessException e) {
             throw new RuntimeException("Database error occurred while fetching the book.", e);
         }
     }
 
+    @Measured
+    public BookLookupResult getBooksByIds(Collection<Long> ids) {
+        if (ids.size() > MAX_PAGE_SIZE)
+            throw new IllegalArgumentException("At most " + MAX_PAGE_SIZE + " IDs can be looked up at once");
+        Set<Long> requestedIds = new LinkedHashSet<>(ids);
+        requestedIds.remove(null);
+        List<Long> candidateIds = requestedIds.stream().filter(bookIdFilter::mightContain).toList();
+        try {
+            Map<Long, Book> found = bookCache.getAll(candidateIds, missing -> bookRepository.findAllById(List.copyOf(missing)).stream()
+                    .collect(Collectors.toMap(Book::getId, Function.identity())));
+            List<Book> books = new ArrayList<>(found.size());
+            List<Long> missingIds = new ArrayList<>();
+            for (Long id : requestedIds) {
+                Book book = found.get(id);
+                if (book != null)
+                    books.add(book);
+                else
+                    missingIds.add(id);
+            }
+            return new BookLookupResult(books, missingIds);
+        } catch (DataAccessException e) {
+            throw new RuntimeException("Database error occurred while fetching books.", e);
+        }
+    }
+
     @Transactional
+    @Measured
     public Book addBook(Book book) {
         try {
-            return bookRepository.save(book);
+            Book savedBook = bookRepository.save(book);
+            bookIdFilter.add(savedBook.getId());
+            afterCommit(() -> bookSearchIndex.index(savedBook));
+            afterCommit(() -> bookStatistics.index(savedBook));
+            bumpCatalogVersion();
+            afterCommit(() -> bookChangeFeed.publish(BookChangeEvent.Type.CREATED, savedBook.getId(), savedBook));
+            return savedBook;
         } catch (DataAccessException e) {
             throw new RuntimeException("Database error occurred while adding the book.", e);
         }
     }
 
     @Transactional
+    @Measured
     public Book updateBook(Long id, Book updatedBook) {
+        return updateBook(id, updatedBook, null);
+    }
+
+    // A non-null expectedVersion makes the update conditional, as with an If-Match header
+    @Transactional
+    @Measured
+    public Book updateBook(Long id, Book updatedBook, Long expectedVersion) {
         try {
             Optional<Book> existingBookOptional = bookRepository.findById(id);
             if (existingBookOptional.isPresent()) {
                 Book existingBook = existingBookOptional.get();
+                if (expectedVersion != null && !expectedVersion.equals(existingBook.getVersion()))
+                    throw new BookPreconditionFailedException(id);
                 existingBook.setTitle(updatedBook.getTitle());
                 existingBook.setAuthor(updatedBook.getAuthor());
                 existingBook.setBookPrice(updatedBook.getBookPrice());
                 existingBook.setYearPublished(updatedBook.getYearPublished());
-                return bookRepository.save(existingBook);
+                Book savedBook = bookRepository.save(existingBook);
+                bookCache.evict(id);
+                afterCommit(() -> bookSearchIndex.index(savedBook));
+                afterCommit(() -> bookStatistics.index(savedBook));
+                bumpCatalogVersion();
+                afterCommit(() -> bookChangeFeed.publish(BookChangeEvent.Type.UPDATED, id, savedBook));
+                return savedBook;
             } else {
                 throw new BookNotFoundException(id);
             }
@@ -66,15 +293,139 @@ public class BookService {
         }
     }
 
+    /**
+     * Applies a JSON Merge Patch: only the supplied fields change, and with @DynamicUpdate on Book
+     * the UPDATE statement only sets the columns whose values actually differ.
+     */
+    @Transactional
+    @Measured
+    public Book patchBook(Long id, Map<String, Object> patch, Long expectedVersion) {
+        try {
+            Book existingBook = bookRepository.findById(id)
+                    .orElseThrow(() -> new BookNotFoundException(id));
+            if (expectedVersion != null && !expectedVersion.equals(existingBook.getVersion()))
+                throw new BookPreconditionFailedException(id);
+            applyPatch(existingBook, patch);
+            Set<ConstraintViolation<Book>> violations = validator.validate(existingBook);
+            if (!violations.isEmpty())
+                throw new ConstraintViolationException(violations);
+            Book savedBook = bookRepository.save(existingBook);
+            bookCache.evict(id);
+            afterCommit(() -> bookSearchIndex.index(savedBook));
+            afterCommit(() -> bookStatistics.index(savedBook));
+            bumpCatalogVersion();
+            afterCommit(() -> bookChangeFeed.publish(BookChangeEvent.Type.UPDATED, id, savedBook));
+            return savedBook;
+        } catch (DataAccessException e) {
+            throw new RuntimeException("Database error occurred while updating the book.", e);
+        }
+    }
+
+    // A null value clears the field, which validation then rejects for the required ones
+    private static void applyPatch(Book book, Map<String, Object> patch) {
+        patch.forEach((field, value) -> {
+            switch (field) {
+                case "title" -> book.setTitle(asString(field, value));
+                case "author" -> book.setAuthor(asString(field, value));
+                case "bookPrice" -> book.setBookPrice(value == null ? null : asNumber(field, value).doubleValue());
+                case "yearPublished" -> book.setYearPublished(value == null ? null : asNumber(field, value).intValue());
+                case "id" -> {
+                    if (!book.getId().equals(value == null ? null : asNumber(field, value).longValue()))
+                        throw new IllegalArgumentException("Book ID cannot be changed");
+                }
+                default -> throw new IllegalArgumentException("Unknown field " + field);
+            }
+        });
+    }
+
+    private static String asString(String field, Object value) {
+        if (value != null && !(value instanceof String))
+            throw new IllegalArgumentException(field + " must be a string");
+        return (String) value;
+    }
+
+    private static Number asNumber(String field, Object value) {
+        if (!(value instanceof Number number))
+            throw new IllegalArgumentException(field + " must be a number");
+        return number;
+    }
+
+    @Measured
+    public List<Book> searchBooks(String query, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE)
+            throw new IllegalArgumentException("Search limit must be between 1 and " + MAX_PAGE_SIZE);
+        return bookSearchIndex.search(query, limit);
+    }
+
+    @Measured
+    public List<String> suggestBooks(String prefix, int limit) {
+        if (limit < 1 || limit > BookSearchIndex.MAX_SUGGESTIONS)
+            throw new IllegalArgumentException("Suggestion limit must be between 1 and " + BookSearchIndex.MAX_SUGGESTIONS);
+        return bookSearchIndex.suggest(prefix, limit);
+    }
+
+    public List<BookGroupStats> getStatistics(String groupBy) {
+        return bookStatistics.get(BookStatistics.GroupBy.parse(groupBy));
+    }
+
+    public BookCacheStats getCacheStats() {
+        return bookCache.getStats();
+    }
+
+    public String getCatalogVersion() {
+        return bookCatalogVersion.current();
+    }
+
     @Transactional
+    @Measured
     public void deleteBook(Long id) {
+        deleteBook(id, null);
+    }
+
+    // A non-null expectedVersion makes the delete conditional, as with an If-Match header
+    @Transactional
+    @Measured
+    public void deleteBook(Long id, Long expectedVersion) {
         try {
-            if (bookRepository.existsById(id))
+            if (expectedVersion != null) {
+                if (bookRepository.deleteByIdAndVersion(id, expectedVersion) == 0) {
+                    // Only the failure path pays for a second query, to tell 412 from 404
+                    if (bookRepository.existsById(id))
+                        throw new BookPreconditionFailedException(id);
+                    throw new BookNotFoundException(id);
+                }
+            } else if (bookRepository.existsById(id)) {
                 bookRepository.deleteById(id);
-            else
+            } else {
                 throw new BookNotFoundException(id);
+            }
+            bookCache.evict(id);
+            afterCommit(() -> bookSearchIndex.remove(id));
+            afterCommit(() -> bookStatistics.remove(id));
+            bumpCatalogVersion();
+            afterCommit(() -> bookChangeFeed.publish(BookChangeEvent.Type.DELETED, id, null));
         } catch (DataAccessException e) {
             throw new RuntimeException("Database error occurred while deleting the book.", e);
         }
     }
+
+    // Flushes first so the book rows are locked before the catalog row, in the same order as every other write
+    private void bumpCatalogVersion() {
+        entityManager.flush();
+        bookCatalogVersion.increment();
+    }
+
+    // Runs the action once the surrounding transaction commits, or right away outside a transaction
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
 }
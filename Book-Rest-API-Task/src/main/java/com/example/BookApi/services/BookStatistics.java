@@ -0,0 +1,106 @@
+package com.example.BookApi.services;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookGroupStats;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Book count and price range per author and per publication year, updated on every write so reading them
+ * costs one step per group instead of a pass over the catalog.
+ * Remembers the grouped values of each book, deletes by ID know what to subtract without reading the row,
+ * and keeps a price histogram per group so the minimum and maximum survive deletions.
+ */
+@Component
+public class BookStatistics {
+
+    public enum GroupBy {
+        AUTHOR, YEAR;
+
+        public static GroupBy parse(String value) {
+            for (GroupBy groupBy : values()) {
+                if (groupBy.name().equalsIgnoreCase(value))
+                    return groupBy;
+            }
+            throw new IllegalArgumentException("Unsupported groupBy " + value);
+        }
+    }
+
+    private record Entry(String author, int year, double price) {
+    }
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, Group> byAuthor = new TreeMap<>();
+    private final Map<Integer, Group> byYear = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Adds a book, or moves it between groups when it was already counted
+    public void index(Book book) {
+        Entry entry = new Entry(book.getAuthor(), book.getYearPublished(), book.getBookPrice());
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.put(book.getId(), entry);
+            if (previous != null)
+                subtract(previous);
+            byAuthor.computeIfAbsent(entry.author(), author -> new Group()).add(entry.price());
+            byYear.computeIfAbsent(entry.year(), year -> new Group()).add(entry.price());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(id);
+            if (previous != null)
+                subtract(previous);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Groups in ascending order of author or year
+    public List<BookGroupStats> get(GroupBy groupBy) {
+        lock.readLock().lock();
+        try {
+            Map<?, Group> groups = groupBy == GroupBy.AUTHOR ? byAuthor : byYear;
+            List<BookGroupStats> stats = new ArrayList<>(groups.size());
+            groups.forEach((key, group) -> stats.add(new BookGroupStats(key, group.count, group.sum / group.count,
+                    group.prices.firstKey(), group.prices.lastKey())));
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void subtract(Entry entry) {
+        if (byAuthor.get(entry.author()).remove(entry.price()))
+            byAuthor.remove(entry.author());
+        if (byYear.get(entry.year()).remove(entry.price()))
+            byYear.remove(entry.year());
+    }
+
+    private static final class Group {
+        private long count;
+        private double sum;
+        private final TreeMap<Double, Integer> prices = new TreeMap<>();
+
+        void add(double price) {
+            count++;
+            sum += price;
+            prices.merge(price, 1, Integer::sum);
+        }
+
+        // Returns true once the group is empty
+        boolean remove(double price) {
+            count--;
+            sum -= price;
+            prices.computeIfPresent(price, (key, books) -> books == 1 ? null : books - 1);
+            return count == 0;
+        }
+    }
+}
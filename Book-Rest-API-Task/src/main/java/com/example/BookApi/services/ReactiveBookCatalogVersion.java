@@ -0,0 +1,45 @@
+package com.example.BookApi.services;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * The book_catalog version of BookCatalogVersion over R2DBC, so both stacks bump and read the same row.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveBookCatalogVersion {
+    private final DatabaseClient databaseClient;
+
+    public ReactiveBookCatalogVersion(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    // Call last in the write's transaction, as on the servlet stack
+    public Mono<Void> increment() {
+        return update().flatMap(updated -> updated > 0 ? Mono.empty() : seed().then(update())).then();
+    }
+
+    public Mono<String> current() {
+        return databaseClient.sql(BookCatalogVersion.SELECT)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .map(String::valueOf)
+                .defaultIfEmpty("0");
+    }
+
+    private Mono<Long> update() {
+        return databaseClient.sql(BookCatalogVersion.INCREMENT).fetch().rowsUpdated();
+    }
+
+    private Mono<Void> seed() {
+        return databaseClient.sql("insert into book_catalog (id, version) values (1, :version)")
+                .bind("version", System.currentTimeMillis())
+                .then()
+                // Seeded concurrently by another writer
+                .onErrorResume(DataIntegrityViolationException.class, e -> Mono.empty());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.BookApi.services;
+
+import com.example.BookApi.classes.Book;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out book IDs from the same book_seq table Hibernate's pooled generator uses on MySQL,
+ * so both stacks can write to one database without colliding.
+ * Like Hibernate, a fetched value v reserves the block (v - 50, v].
+ */
+@Component
+@Profile("reactive")
+public class ReactiveBookIdAllocator {
+    static final int ALLOCATION_SIZE = Book.ID_ALLOCATION_SIZE;
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final AtomicReference<IdBlock> block = new AtomicReference<>(new IdBlock(1, 0));
+
+    public ReactiveBookIdAllocator(DatabaseClient databaseClient, TransactionalOperator transactionalOperator) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    public Mono<Long> nextId() {
+        return Mono.defer(() -> {
+            long id = block.get().next();
+            if (id > 0)
+                return Mono.just(id);
+            // Concurrent callers may each fetch a block, the unused IDs are simply skipped
+            return fetchBlock().flatMap(fetched -> {
+                block.set(fetched);
+                return nextId();
+            });
+        });
+    }
+
+    private Mono<IdBlock> fetchBlock() {
+        return databaseClient.sql("select next_val from book_seq for update")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .flatMap(value -> databaseClient.sql("update book_seq set next_val = :next")
+                        .bind("next", value + ALLOCATION_SIZE)
+                        .then()
+                        .thenReturn(value))
+                .as(transactionalOperator::transactional)
+                .map(value -> new IdBlock(Math.max(1, value - ALLOCATION_SIZE + 1), value));
+    }
+
+    private static class IdBlock {
+        private final AtomicLong next;
+        private final long last;
+
+        IdBlock(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+
+        // Returns 0 once the block is used up
+        long next() {
+            long id = next.getAndIncrement();
+            return id <= last ? id : 0;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.BookApi.services;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookCursor;
+import com.example.BookApi.classes.BookFilter;
+import com.example.BookApi.classes.BookPage;
+import com.example.BookApi.exceptionHandler.BookNotFoundException;
+import com.example.BookApi.exceptionHandler.BookPreconditionFailedException;
+import com.example.BookApi.repositories.ReactiveBookRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+/**
+ * Non-blocking counterpart of BookService for the "reactive" profile, serving the same /books contract
+ * over R2DBC. Rows are pulled from the driver only as fast as the client reads them.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveBookService {
+    private final ReactiveBookRepository bookRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final ReactiveBookIdAllocator idAllocator;
+    private final ReactiveBookCatalogVersion bookCatalogVersion;
+    private final TransactionalOperator transactionalOperator;
+    private final Validator validator;
+
+    public ReactiveBookService(ReactiveBookRepository bookRepository, R2dbcEntityTemplate entityTemplate,
+                               ReactiveBookIdAllocator idAllocator, ReactiveBookCatalogVersion bookCatalogVersion,
+                               TransactionalOperator transactionalOperator, Validator validator) {
+        this.bookRepository = bookRepository;
+        this.entityTemplate = entityTemplate;
+        this.idAllocator = idAllocator;
+        this.bookCatalogVersion = bookCatalogVersion;
+        this.transactionalOperator = transactionalOperator;
+        this.validator = validator;
+    }
+
+    public Flux<Book> streamBooks(BookFilter filter) {
+        return entityTemplate.select(Book.class)
+                .matching(Query.query(matches(filter)).sort(filter.toSort()))
+                .all()
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Database error occurred while fetching books.", e));
+    }
+
+    public Mono<BookPage> getBooksPage(BookFilter filter, String after, int limit) {
+        if (limit < 1 || limit > BookService.MAX_PAGE_SIZE)
+            return Mono.error(new IllegalArgumentException("Page limit must be between 1 and " + BookService.MAX_PAGE_SIZE));
+        Mono<Criteria> criteria = Mono.fromCallable(() -> after == null
+                ? matches(filter)
+                : matches(filter).and(after(filter, BookCursor.parse(filter, after))));
+        // Fetch one extra row to know whether another page exists without a count query
+        return criteria
+                .flatMap(where -> entityTemplate.select(Book.class)
+                        .matching(Query.query(where).sort(filter.toSort()).limit(limit + 1))
+                        .all()
+                        .collectList())
+                .map(books -> {
+                    if (books.size() <= limit)
+                        return new BookPage(books, null);
+                    List<Book> page = books.subList(0, limit);
+                    return new BookPage(page, BookCursor.of(filter, page.get(limit - 1)).toString());
+                })
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Database error occurred while fetching books.", e));
+    }
+
+    public Mono<Book> getBookById(Long id) {
+        return bookRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new BookNotFoundException(id)))
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Database error occurred while fetching the book.", e));
+    }
+
+    public Mono<Book> addBook(Book book) {
+        return validate(book)
+                .then(idAllocator.nextId())
+                .flatMap(id -> {
+                    book.setId(id);
+                    book.setVersion(0L);
+                    return entityTemplate.insert(book)
+                            .flatMap(saved -> bookCatalogVersion.increment().thenReturn(saved))
+                            .as(transactionalOperator::transactional);
+                })
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Database error occurred while adding the book.", e));
+    }
+
+    // A non-null expectedVersion makes the update conditional, as with an If-Match header
+    public Mono<Book> updateBook(Long id, Book book, Long expectedVersion) {
+        return validate(book)
+                .then(getBookById(id))
+                .flatMap(existingBook -> {
+                    if (expectedVersion != null && !expectedVersion.equals(existingBook.getVersion()))
+                        return Mono.error(new BookPreconditionFailedException(id));
+                    return bookRepository.updateIfVersion(id, book.getTitle(), book.getAuthor(), book.getBookPrice(),
+                                    book.getYearPublished(), existingBook.getVersion())
+                            .flatMap(updated -> updated == 0
+                                    ? Mono.error(new BookPreconditionFailedException(id))
+                                    : bookCatalogVersion.increment().thenReturn(
+                                            new Book(id, book.getTitle(), book.getAuthor(), book.getBookPrice(), book.getYearPublished())))
+                            .doOnNext(updatedBook -> updatedBook.setVersion(existingBook.getVersion() + 1))
+                            .as(transactionalOperator::transactional);
+                })
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Database error occurred while updating the book.", e));
+    }
+
+    // A non-null expectedVersion makes the delete conditional, as with an If-Match header
+    public Mono<Void> deleteBook(Long id, Long expectedVersion) {
+        Mono<Integer> deleted = expectedVersion != null
+                ? bookRepository.deleteByIdAndVersion(id, expectedVersion)
+                : bookRepository.removeById(id);
+        return deleted
+                .flatMap(count -> {
+                    if (count > 0)
+                        return bookCatalogVersion.increment();
+                    if (expectedVersion == null)
+                        return Mono.<Void>error(new BookNotFoundException(id));
+                    // Only the failure path pays for a second query, to tell 412 from 404
+                    return bookRepository.existsById(id)
+                            .flatMap(exists -> Mono.<Void>error(exists ? new BookPreconditionFailedException(id) : new BookNotFoundException(id)));
+                })
+                .as(transactionalOperator::transactional)
+                .onErrorMap(DataAccessException.class, e -> new RuntimeException("Database error occurred while deleting the book.", e));
+    }
+
+    public Mono<String> getCatalogVersion() {
+        return bookCatalogVersion.current();
+    }
+
+    private Mono<Void> validate(Book book) {
+        Set<ConstraintViolation<Book>> violations = validator.validate(book);
+        return violations.isEmpty() ? Mono.empty() : Mono.error(new ConstraintViolationException(violations));
+    }
+
+    private static Criteria matches(BookFilter filter) {
+        Criteria criteria = Criteria.empty();
+        if (filter.getMinPrice() != null)
+            criteria = criteria.and("bookPrice").greaterThanOrEquals(filter.getMinPrice());
+        if (filter.getMaxPrice() != null)
+            criteria = criteria.and("bookPrice").lessThanOrEquals(filter.getMaxPrice());
+        if (filter.getFromYear() != null)
+            criteria = criteria.and("yearPublished").greaterThanOrEquals(filter.getFromYear());
+        if (filter.getToYear() != null)
+            criteria = criteria.and("yearPublished").lessThanOrEquals(filter.getToYear());
+        return criteria;
+    }
+
+    // Rows that come after the cursor in the filter's sort order, see BookSpecifications.after
+    private static Criteria after(BookFilter filter, BookCursor cursor) {
+        boolean ascending = filter.getSortDirection() == Sort.Direction.ASC;
+        String property = filter.getSortProperty();
+        if ("id".equals(property))
+            return ascending ? where("id").greaterThan(cursor.getId()) : where("id").lessThan(cursor.getId());
+        Object value = cursor.getSortValue();
+        Criteria beyondValue = ascending ? where(property).greaterThan(value) : where(property).lessThan(value);
+        return beyondValue.or(where(property).is(value).and("id").greaterThan(cursor.getId()));
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.BookApi;
+
+import com.example.BookApi.config.AdaptiveConcurrencyLimit;
+import com.example.BookApi.config.AdaptiveConcurrencyLimit.Priority;
+import com.example.BookApi.config.ConcurrencyLimitFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void testBulkReadsShedBeforeWrites() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 10, 0.5, 10);
+
+        assertTrue(limit.tryAcquire(Priority.BULK_READ));
+        assertTrue(limit.tryAcquire(Priority.BULK_READ));
+        assertFalse(limit.tryAcquire(Priority.BULK_READ));
+        assertTrue(limit.tryAcquire(Priority.READ));
+        assertTrue(limit.tryAcquire(Priority.WRITE));
+        assertFalse(limit.tryAcquire(Priority.WRITE));
+        assertEquals(1, limit.getRejected(Priority.BULK_READ));
+        assertEquals(1, limit.getRejected(Priority.WRITE));
+
+        limit.release(-1);
+        assertTrue(limit.tryAcquire(Priority.WRITE));
+    }
+
+    @Test
+    void testLimitGrowsAtSteadyLatency_ShrinksWhenLatencyClimbs() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 100, 0.5, 10);
+        runWindows(limit, FAST, 20);
+        int grown = limit.getLimit();
+        assertTrue(grown > 10, "limit " + grown);
+
+        runWindows(limit, SLOW, 2);
+        int shrunk = limit.getLimit();
+        assertTrue(shrunk < grown, grown + " -> " + shrunk);
+        assertTrue(shrunk >= 2);
+    }
+
+    @Test
+    void testLimitHoldsWhileMostlyIdle() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 100, 0.5, 10);
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire(Priority.READ);
+            limit.release(FAST);
+        }
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    void testFilterShedsWith503_AndReleasesAfterwards() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 1, 1, 1.0, 10);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limit, new ObjectMapper());
+        FilterChain chain = mock(FilterChain.class);
+
+        limit.tryAcquire(Priority.WRITE);
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/books/1"), shed, chain);
+        assertEquals(503, shed.getStatus());
+        assertEquals("1", shed.getHeader("Retry-After"));
+        assertTrue(shed.getContentAsString().contains("\"statusCode\":503"));
+        verifyNoInteractions(chain);
+
+        limit.release(-1);
+        MockHttpServletResponse served = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("PUT", "/books/1"), served, chain);
+        assertEquals(200, served.getStatus());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    // Keeps the limit saturated so every window counts towards the gradient
+    private static void runWindows(AdaptiveConcurrencyLimit limit, long rtt, int windows) {
+        for (int window = 0; window < windows; window++) {
+            int admitted = 0;
+            while (limit.tryAcquire(Priority.WRITE)) {
+                admitted++;
+            }
+            for (int i = 0; i < admitted; i++) {
+                limit.release(rtt);
+            }
+            for (int i = admitted; i < 10; i++) {
+                limit.tryAcquire(Priority.WRITE);
+                limit.release(rtt);
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.BookApi;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The /books contract both stacks must honour, run over HTTP against the servlet controller
+ * (ServletBookApiContractTest) and the reactive router (ReactiveBookApiContractTest).
+ */
+abstract class BookApiContract {
+
+    @Autowired
+    protected WebTestClient webTestClient;
+
+    @LocalServerPort
+    protected int port;
+
+    // WebTestClient asks for gzip and unpacks it itself, identity keeps the tags the tests expect on both stacks
+    @BeforeEach
+    void requestIdentity() {
+        webTestClient = webTestClient.mutate().defaultHeader(HttpHeaders.ACCEPT_ENCODING, "identity").build();
+    }
+
+    private Book create(String title, double price, int year) {
+        Book book = webTestClient.post().uri("/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Book(null, title, "Contract Author", price, year))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Book.class)
+                .returnResult().getResponseBody();
+        assertNotNull(book);
+        assertNotNull(book.getId());
+        return book;
+    }
+
+    @Test
+    void testCreateAndFetchWithETag() {
+        Book created = create("Contract Algorithms", 20.0, 1990);
+
+        String eTag = webTestClient.get().uri("/books/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"v0\"")
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Contract Algorithms")
+                .jsonPath("$.bookPrice").isEqualTo(20.0)
+                .jsonPath("$.version").doesNotExist()
+                .returnResult().getResponseHeaders().getETag();
+
+        webTestClient.get().uri("/books/{id}", created.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    void testUnknownBook_NotFound() {
+        webTestClient.get().uri("/books/{id}", 987_654_321L)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Book with ID 987654321 not found")
+                .jsonPath("$.statusCode").isEqualTo(404);
+    }
+
+    @Test
+    void testInvalidBook_BadRequest() {
+        webTestClient.post().uri("/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Book(null, "", "Contract Author", 10.0, 2000))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.messages[0]").isEqualTo("Title is required");
+
+        webTestClient.post().uri("/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"title\": ")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testConditionalUpdate() {
+        Book created = create("Contract Java", 30.0, 1999);
+        Book changes = new Book(null, "Contract Java, 2nd", "Contract Author", 35.0, 2005);
+
+        webTestClient.put().uri("/books/{id}", created.getId())
+                .header(HttpHeaders.IF_MATCH, "\"v0\"")
+                .bodyValue(changes)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"v1\"")
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Contract Java, 2nd");
+
+        webTestClient.put().uri("/books/{id}", created.getId())
+                .header(HttpHeaders.IF_MATCH, "\"v0\"")
+                .bodyValue(changes)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @Test
+    void testETagPerEncoding_VaryByAccept() {
+        Book created = create("Contract Encodings", 25.0, 2001);
+        MediaType cbor = MediaType.parseMediaType("application/cbor");
+
+        webTestClient.get().uri("/books/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"v0\"")
+                .expectHeader().values(HttpHeaders.VARY, vary -> assertTrue(vary.contains(HttpHeaders.ACCEPT)));
+
+        // The JSON tag must not let a cache hand a CBOR client the JSON body
+        webTestClient.get().uri("/books/{id}", created.getId())
+                .accept(cbor)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"v0\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(cbor)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"v0-cbor\"")
+                .expectHeader().values(HttpHeaders.VARY, vary -> assertTrue(vary.contains(HttpHeaders.ACCEPT)));
+
+        webTestClient.get().uri("/books/{id}", created.getId())
+                .accept(cbor)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"v0-cbor\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().values(HttpHeaders.VARY, vary -> assertTrue(vary.contains(HttpHeaders.ACCEPT)));
+
+        webTestClient.put().uri("/books/{id}", created.getId())
+                .accept(cbor)
+                .header(HttpHeaders.IF_MATCH, "\"v0-cbor\"")
+                .bodyValue(new Book(null, "Contract Encodings, 2nd", "Contract Author", 26.0, 2002))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"v1-cbor\"");
+    }
+
+    @Test
+    void testDelete() {
+        Book created = create("Contract Refactoring", 10.0, 2018);
+
+        webTestClient.delete().uri("/books/{id}", created.getId())
+                .header(HttpHeaders.IF_MATCH, "\"v7\"")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        webTestClient.delete().uri("/books/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/books/{id}", created.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.delete().uri("/books/{id}", created.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testListAndPages() {
+        Book first = create("Contract Page One", 41.0, 2001);
+        Book second = create("Contract Page Two", 42.0, 2002);
+
+        List<Book> all = webTestClient.get().uri("/books")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Book.class)
+                .returnResult().getResponseBody();
+        assertTrue(all.stream().anyMatch(book -> book.getId().equals(first.getId())));
+        assertTrue(all.stream().anyMatch(book -> book.getId().equals(second.getId())));
+
+        BookPage page = webTestClient.get().uri("/books?limit=1&minPrice=40.5&maxPrice=42.5&sort=-price")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookPage.class)
+                .returnResult().getResponseBody();
+        assertEquals(List.of("Contract Page Two"), page.getBooks().stream().map(Book::getTitle).toList());
+        assertEquals("42.0_" + second.getId(), page.getNextCursor());
+
+        BookPage next = webTestClient.get().uri("/books?limit=1&minPrice=40.5&maxPrice=42.5&sort=-price&after=" + page.getNextCursor())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookPage.class)
+                .returnResult().getResponseBody();
+        assertEquals(List.of("Contract Page One"), next.getBooks().stream().map(Book::getTitle).toList());
+        assertNull(next.getNextCursor());
+
+        webTestClient.get().uri("/books?sort=title")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testCompression_StrongETagPerEncoding() throws Exception {
+        // Enough rows to be worth compressing
+        for (int i = 0; i < 30; i++) {
+            create("Contract Compressed", 17.0, 1917);
+        }
+        String query = "/books?minPrice=17&maxPrice=17&fromYear=1917&toYear=1917";
+        String eTag = webTestClient.get().uri(query)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+                .returnResult(byte[].class).getResponseHeaders().getETag();
+        assertTrue(eTag.startsWith("\"c"), eTag);
+
+        HttpResponse<InputStream> gzipped = get(query, HttpHeaders.ACCEPT_ENCODING, "gzip");
+        assertEquals(200, gzipped.statusCode());
+        assertEquals("gzip", gzipped.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+        String gzippedETag = eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+        assertEquals(gzippedETag, gzipped.headers().firstValue(HttpHeaders.ETAG).orElse(null));
+        assertTrue(gzipped.headers().allValues(HttpHeaders.VARY).stream()
+                .anyMatch(vary -> vary.equalsIgnoreCase(HttpHeaders.ACCEPT_ENCODING)));
+        try (GZIPInputStream json = new GZIPInputStream(gzipped.body())) {
+            assertEquals(30, new ObjectMapper().readValue(json, Book[].class).length);
+        }
+
+        HttpResponse<InputStream> notModified = get(query, HttpHeaders.IF_NONE_MATCH, gzippedETag,
+                HttpHeaders.ACCEPT_ENCODING, "gzip");
+        assertEquals(304, notModified.statusCode());
+        assertEquals(gzippedETag, notModified.headers().firstValue(HttpHeaders.ETAG).orElse(null));
+        webTestClient.get().uri(query)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, eTag);
+    }
+
+    private HttpResponse<InputStream> get(String uri, String... headers) throws Exception {
+        return HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + uri)).headers(headers).build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.BookApi;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookChangeEvent;
+import com.example.BookApi.exceptionHandler.BookChangesExpiredException;
+import com.example.BookApi.services.BookChangeFeed;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookChangeFeedTest {
+
+    private static final Book BOOK = new Book(1L, "Algorithms", "Thomas H. Cormen", 200.0, 1990);
+
+    @Test
+    void testReplaysAfterSequence_ThenFollowsLiveEvents() {
+        BookChangeFeed feed = new BookChangeFeed(10, Runnable::run);
+        feed.publish(BookChangeEvent.Type.CREATED, 1L, BOOK);
+        feed.publish(BookChangeEvent.Type.UPDATED, 1L, BOOK);
+
+        RecordingSink sink = new RecordingSink();
+        feed.subscribe(feed.getEpoch() + "-1", sink);
+        feed.publish(BookChangeEvent.Type.DELETED, 1L, null);
+
+        assertEquals(List.of(2L, 3L), sink.sequences());
+        assertEquals(BookChangeEvent.Type.DELETED, sink.events.get(1).getType());
+        assertEquals(feed.getEpoch() + "-3", sink.events.get(1).getEventId());
+    }
+
+    @Test
+    void testWithoutSequence_OnlyNewEvents() {
+        BookChangeFeed feed = new BookChangeFeed(10, Runnable::run);
+        feed.publish(BookChangeEvent.Type.CREATED, 1L, BOOK);
+
+        RecordingSink sink = new RecordingSink();
+        feed.subscribe(null, sink);
+        feed.publish(BookChangeEvent.Type.UPDATED, 1L, BOOK);
+
+        assertEquals(List.of(2L), sink.sequences());
+    }
+
+    @Test
+    void testSequenceOutsideReplayBuffer_Expired() {
+        BookChangeFeed feed = new BookChangeFeed(2, Runnable::run);
+        for (int i = 0; i < 5; i++) {
+            feed.publish(BookChangeEvent.Type.UPDATED, 1L, BOOK);
+        }
+
+        assertThrows(BookChangesExpiredException.class, () -> feed.subscribe(feed.getEpoch() + "-2", new RecordingSink()));
+        assertThrows(BookChangesExpiredException.class, () -> feed.subscribe(feed.getEpoch() + "-6", new RecordingSink()));
+        RecordingSink sink = new RecordingSink();
+        feed.subscribe(feed.getEpoch() + "-3", sink);
+        assertEquals(List.of(4L, 5L), sink.sequences());
+    }
+
+    @Test
+    void testEventIdFromEarlierProcess_Expired() {
+        BookChangeFeed feed = new BookChangeFeed(10, Runnable::run);
+        feed.publish(BookChangeEvent.Type.CREATED, 1L, BOOK);
+
+        assertThrows(BookChangesExpiredException.class, () -> feed.subscribe("0-1", new RecordingSink()));
+        assertThrows(BookChangesExpiredException.class, () -> feed.subscribe("1", new RecordingSink()));
+        assertThrows(BookChangesExpiredException.class, () -> feed.subscribe(feed.getEpoch() + "-x", new RecordingSink()));
+    }
+
+    @Test
+    void testSubscriberFallingBehind_IsDisconnected() {
+        List<Runnable> pending = new ArrayList<>();
+        Executor queued = pending::add;
+        BookChangeFeed feed = new BookChangeFeed(2, queued);
+        RecordingSink sink = new RecordingSink();
+        feed.subscribe(null, sink);
+
+        for (int i = 0; i < 3; i++) {
+            feed.publish(BookChangeEvent.Type.UPDATED, 1L, BOOK);
+        }
+
+        assertTrue(sink.closed);
+        assertEquals(0, feed.getSubscribers());
+    }
+
+    @Test
+    void testWritersBusy_IsDisconnected() {
+        BookChangeFeed feed = new BookChangeFeed(10, task -> {
+            throw new RejectedExecutionException();
+        });
+        RecordingSink sink = new RecordingSink();
+        feed.subscribe(null, sink);
+
+        feed.publish(BookChangeEvent.Type.CREATED, 1L, BOOK);
+
+        assertTrue(sink.closed);
+        assertEquals(0, feed.getSubscribers());
+    }
+
+    @Test
+    void testFailingSink_IsUnsubscribed() {
+        BookChangeFeed feed = new BookChangeFeed(10, Runnable::run);
+        feed.subscribe(null, new RecordingSink() {
+            @Override
+            public void send(BookChangeEvent event) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        });
+
+        feed.publish(BookChangeEvent.Type.CREATED, 1L, BOOK);
+        assertEquals(0, feed.getSubscribers());
+    }
+
+    private static class RecordingSink implements BookChangeFeed.Sink {
+        final List<BookChangeEvent> events = new ArrayList<>();
+        boolean closed;
+
+        @Override
+        public void send(BookChangeEvent event) throws IOException {
+            events.add(event);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        List<Long> sequences() {
+            return events.stream().map(BookChangeEvent::getSequence).toList();
+        }
+    }
+}
@@ -1,21 +1,39 @@
 package com.example.BookApi;
 
 import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookFieldsLookupResult;
+import com.example.BookApi.classes.BookFilter;
+import com.example.BookApi.classes.BookImportResult;
+import com.example.BookApi.classes.BookLookupResult;
+import com.example.BookApi.classes.BookPage;
 import com.example.BookApi.controllers.BookController;
 import com.example.BookApi.exceptionHandler.BookNotFoundException;
+import com.example.BookApi.exceptionHandler.BookPreconditionFailedException;
+import com.example.BookApi.services.BookImportService;
 import com.example.BookApi.services.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -24,6 +42,12 @@ public class BookControllerTest {
     @Mock
     BookService bookService;
 
+    @Mock
+    BookImportService bookImportService;
+
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     BookController bookController;
 
@@ -39,31 +63,131 @@ public class BookControllerTest {
     }
 
     @Test
-    public void getAllBooksTest() {
+    @SuppressWarnings("unchecked")
+    public void getAllBooksTest() throws Exception {
         List<Book> books = List.of(AlgorithmsBook, DataStructuresBook, JavaBook);
-        when(bookService.getAllBooks()).thenReturn(books);
-        List<Book> BooksFound = bookController.getAllBooks();
-        assertEquals(books, BooksFound);
-//        assertEquals(3, BooksFound.size());
+        doAnswer(invocation -> {
+            books.forEach(invocation.getArgument(1, Consumer.class));
+            return null;
+        }).when(bookService).streamBooks(any(), any());
+        ResponseEntity<StreamingResponseBody> response = bookController.getAllBooks(new BookFilter(), null, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        response.getBody().writeTo(output);
+        Book[] BooksFound = objectMapper.readValue(output.toByteArray(), Book[].class);
+        assertEquals(3, BooksFound.length);
+        assertEquals("Data Structures", BooksFound[1].getTitle());
     }
 
     @Test
-    public void getBookByIdTest_IsFound() {
+    public void getBooksPageTest() throws Exception {
+        BookPage page = new BookPage(List.of(AlgorithmsBook, DataStructuresBook), "12.0_2");
+        BookFilter filter = new BookFilter(10.0, 20.0, 2015, null, "price");
+        when(bookService.getBooksPage(filter, null, 2)).thenReturn(page);
+        BookPage pageFound = bookController.getBooksPage(filter, null, 2, null, null).getBody();
+        assertEquals(page, pageFound);
+        assertEquals("12.0_2", pageFound.getNextCursor());
+    }
+
+    @Test
+    public void getBookByIdTest_IsFound() throws Exception {
         when(bookService.getBookById(1L)).thenReturn(Optional.of(AlgorithmsBook));
-        ResponseEntity<?> response = bookController.getBookById(1L);
+        ResponseEntity<?> response = bookController.getBookById(1L, null, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         Book bookFound = (Book) response.getBody();
         assertEquals(AlgorithmsBook, bookFound);
     }
 
+    @Test
+    public void getBookByIdTest_NotModified() throws Exception {
+        Book book = new Book(1L, "Algorithms", "Thomas H. Cormen", 200.0, 1990);
+        book.setVersion(3L);
+        when(bookService.getBookById(1L)).thenReturn(Optional.of(book));
+        ResponseEntity<Book> response = bookController.getBookById(1L, "\"v3\"", null);
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"v3\"", response.getHeaders().getETag());
+        assertNull(response.getBody());
+        assertEquals(HttpStatus.OK, bookController.getBookById(1L, "\"v2\"", null).getStatusCode());
+    }
+
+    @Test
+    public void getBookByIdTest_ETagPerEncoding() throws Exception {
+        Book book = new Book(1L, "Algorithms", "Thomas H. Cormen", 200.0, 1990);
+        book.setVersion(3L);
+        when(bookService.getBookById(1L)).thenReturn(Optional.of(book));
+        ResponseEntity<Book> response = bookController.getBookById(1L, "\"v3\"", "application/cbor");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"v3-cbor\"", response.getHeaders().getETag());
+        assertEquals(List.of(HttpHeaders.ACCEPT), response.getHeaders().getVary());
+        assertEquals(HttpStatus.NOT_MODIFIED, bookController.getBookById(1L, "\"v3-cbor\"", "application/cbor").getStatusCode());
+    }
+
+    @Test
+    public void getAllBooksTest_NotModified() throws Exception {
+        when(bookService.getCatalogVersion()).thenReturn("abc-7");
+        ResponseEntity<StreamingResponseBody> response = bookController.getAllBooks(new BookFilter(), "\"cabc-7\"", null);
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        verify(bookService, never()).streamBooks(any(), any());
+        assertEquals(HttpStatus.NOT_MODIFIED, bookController.getBooksPage(new BookFilter(), null, 10, "\"cabc-7-gzip\"", null).getStatusCode());
+        assertEquals(HttpStatus.OK, bookController.getBooksPage(new BookFilter(), null, 10, "\"cabc-6\"", null).getStatusCode());
+    }
+
+    @Test
+    public void testUpdateBook_IfMatch() throws Exception {
+        Book updated = new Book(1L, "Algorithms", "Thomas H. Cormen", 200.0, 1990);
+        updated.setVersion(4L);
+        when(bookService.updateBook(eq(1L), any(Book.class), eq(3L))).thenReturn(updated);
+        ResponseEntity<?> response = bookController.updateBook(1L, updated, "\"v3\"", null);
+        assertEquals("\"v4\"", response.getHeaders().getETag());
+        assertThrows(BookPreconditionFailedException.class, () -> bookController.updateBook(1L, updated, "\"garbage\"", null));
+    }
+
+    @Test
+    public void testPatchBook_IfMatch() throws Exception {
+        Book patched = new Book(1L, "Algorithms", "Thomas H. Cormen", 180.0, 1990);
+        patched.setVersion(4L);
+        when(bookService.patchBook(1L, Map.of("bookPrice", 180.0), 3L)).thenReturn(patched);
+        ResponseEntity<Book> response = bookController.patchBook(1L, Map.of("bookPrice", 180.0), "\"v3\"", null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"v4\"", response.getHeaders().getETag());
+        assertEquals(180.0, response.getBody().getBookPrice());
+    }
+
     @Test
     public void getBookByIdTest_NotFound() {
         when(bookService.getBookById(99L)).thenReturn(Optional.empty());
-        Exception exception = assertThrows(BookNotFoundException.class, () -> bookController.getBookById(99L));
+        Exception exception = assertThrows(BookNotFoundException.class, () -> bookController.getBookById(99L, null, null));
         assertEquals("Book with ID 99 not found", exception.getMessage());
     }
 
+    @Test
+    public void getBooksByIdsTest() throws Exception {
+        BookLookupResult result = new BookLookupResult(List.of(AlgorithmsBook), List.of(99L));
+        when(bookService.getBooksByIds(List.of(1L, 99L))).thenReturn(result);
+        assertEquals(result, bookController.getBooksByIds(List.of(1L, 99L), null, null).getBody());
+        assertEquals(result, bookController.lookupBooks(List.of(1L, 99L)));
+    }
+
+    @Test
+    public void getBookFieldsByIdsTest() throws Exception {
+        when(bookService.getBooksByIds(List.of(1L, 99L))).thenReturn(new BookLookupResult(List.of(AlgorithmsBook), List.of(99L)));
+
+        ResponseEntity<BookFieldsLookupResult> response = bookController.getBookFieldsByIds(List.of(1L, 99L), "id,title", null, null);
+
+        assertEquals(List.of(Map.of("id", 1L, "title", "Algorithms")), response.getBody().getBooks());
+        assertEquals(List.of(99L), response.getBody().getMissingIds());
+        assertThrows(IllegalArgumentException.class, () -> bookController.getBookFieldsByIds(List.of(1L), "title,version", null, null));
+    }
+
+    @Test
+    public void searchAndSuggestTest() {
+        when(bookService.searchBooks("cormen", 20)).thenReturn(List.of(AlgorithmsBook, DataStructuresBook));
+        when(bookService.suggestBooks("thom", 10)).thenReturn(List.of("Thomas H. Cormen"));
+        assertEquals(List.of(AlgorithmsBook, DataStructuresBook), bookController.searchBooks("cormen", 20));
+        assertEquals(List.of("Thomas H. Cormen"), bookController.suggestBooks("thom", 10));
+    }
+
     @Test
     public void testAddBook() throws Exception {
         Book SpringBootBook = new Book(4L, "Spring Boot", "Craig Walls", 400.0, 2000);
@@ -76,11 +200,37 @@ public class BookControllerTest {
     }
 
     @Test
-    public void testUpdateBook_Success() {
+    @SuppressWarnings("unchecked")
+    public void testImportBooks_Ndjson() throws Exception {
+        String body = "{\"title\":\"Spring Boot\",\"author\":\"Craig Walls\",\"bookPrice\":400.0,\"yearPublished\":2000}\n"
+                + "{\"title\":\"\",\"author\":\"Craig Walls\",\"bookPrice\":400.0,\"yearPublished\":2000}\n";
+        when(bookImportService.importBooks(any())).thenAnswer(invocation -> {
+            Iterator<Book> books = invocation.getArgument(0, Iterator.class);
+            assertEquals("Spring Boot", books.next().getTitle());
+            assertEquals("", books.next().getTitle());
+            return List.of(BookImportResult.created(0, 4L), BookImportResult.invalid(1, List.of("Title is required")));
+        });
+        ResponseEntity<List<BookImportResult>> response = bookController.importBooks(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(HttpStatus.MULTI_STATUS, response.getStatusCode());
+        assertEquals(2, response.getBody().size());
+    }
+
+    @Test
+    public void testImportBooks_JsonArray() throws Exception {
+        String body = "[{\"title\":\"Spring Boot\",\"author\":\"Craig Walls\",\"bookPrice\":400.0,\"yearPublished\":2000}]";
+        when(bookImportService.importBooks(any())).thenReturn(List.of(BookImportResult.created(0, 4L)));
+        ResponseEntity<List<BookImportResult>> response = bookController.importBooks(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+    }
+
+    @Test
+    public void testUpdateBook_Success() throws Exception {
         AlgorithmsBook.setTitle("Algorithms_Updated");
         AlgorithmsBook.setBookPrice(250.9);
-        when(bookService.updateBook(eq(1L), any(Book.class))).thenReturn(AlgorithmsBook);
-        ResponseEntity<?> response = bookController.updateBook(1L, AlgorithmsBook);
+        when(bookService.updateBook(eq(1L), any(Book.class), isNull())).thenReturn(AlgorithmsBook);
+        ResponseEntity<?> response = bookController.updateBook(1L, AlgorithmsBook, null, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertInstanceOf(Book.class, response.getBody());
@@ -91,22 +241,22 @@ public class BookControllerTest {
 
     @Test
     public void testUpdateBook_NotFound() {
-        when(bookService.updateBook(eq(1000L), any(Book.class))).thenThrow(new BookNotFoundException(1000L));
-        Exception exception = assertThrows(BookNotFoundException.class, () -> bookController.updateBook(1000L, AlgorithmsBook));
+        when(bookService.updateBook(eq(1000L), any(Book.class), isNull())).thenThrow(new BookNotFoundException(1000L));
+        Exception exception = assertThrows(BookNotFoundException.class, () -> bookController.updateBook(1000L, AlgorithmsBook, null, null));
         assertEquals("Book with ID 1000 not found", exception.getMessage());
     }
 
     @Test
     public void testDeleteBook_Success() {
-        doNothing().when(bookService).deleteBook(1L);
-        ResponseEntity<?> response = bookController.deleteBook(1L);
+        doNothing().when(bookService).deleteBook(1L, null);
+        ResponseEntity<?> response = bookController.deleteBook(1L, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
     public void testDeleteBook_NotFound() {
-        doThrow(new BookNotFoundException(99L)).when(bookService).deleteBook(99L);
-        Exception exception = assertThrows(BookNotFoundException.class, () -> bookController.deleteBook(99L));
+        doThrow(new BookNotFoundException(99L)).when(bookService).deleteBook(99L, null);
+        Exception exception = assertThrows(BookNotFoundException.class, () -> bookController.deleteBook(99L, null));
         assertEquals("Book with ID 99 not found", exception.getMessage());
     }
 }
@@ -0,0 +1,94 @@
+package com.example.BookApi;
+
+import com.example.BookApi.classes.BookFilter;
+import com.example.BookApi.repositories.BookRepository;
+import com.example.BookApi.services.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Times the price/year range filter with and without the bookPrice and yearPublished indexes.
+ * Not picked up by the default surefire includes, run it with: mvn test -Dtest=BookFilterBenchmark
+ * Add -Dbenchmark.rows=N to change the row count. The second-level and query cache are off, they would answer
+ * the repeated pages without going to the database at all.
+ */
+@SpringBootTest(properties = "books.second-level-cache.enabled=false")
+@Tag("benchmark")
+public class BookFilterBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAllInBatch();
+        List<Object[]> batch = new ArrayList<>(10_000);
+        for (int i = 1; i <= ROWS; i++) {
+            batch.add(new Object[]{(long) i, "Title " + i, "Author " + (i % 5_000), (i * 7919L % 100_000) / 100.0, 1900 + i % 125});
+            if (batch.size() == 10_000 || i == ROWS) {
+                jdbcTemplate.batchUpdate("insert into book (id, title, author, book_price, year_published) values (?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        createIndexes();
+        bookRepository.deleteAllInBatch();
+    }
+
+    private void createIndexes() {
+        jdbcTemplate.execute("create index if not exists idx_book_price_id on book (book_price, id)");
+        jdbcTemplate.execute("create index if not exists idx_book_year_id on book (year_published, id)");
+    }
+
+    // The bounds shift every iteration, otherwise H2 answers repeated identical queries from its result cache
+    private double averageMillis(IntFunction<BookFilter> filters) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            bookService.getBooksPage(filters.apply(i), null, 100);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            bookService.getBooksPage(filters.apply(WARMUP_ITERATIONS + i), null, 100);
+        }
+        return (System.nanoTime() - start) / 1e6 / ITERATIONS;
+    }
+
+    @Test
+    void compareIndexedAndUnindexedRangeQueries() {
+        IntFunction<BookFilter> priceFilter = i -> new BookFilter(10.0 + i % 100 / 100.0, 20.0, null, null, "price");
+        IntFunction<BookFilter> yearFilter = i -> new BookFilter(null, null, 2015 - i % 100, null, "year");
+        createIndexes();
+        double indexedPrice = averageMillis(priceFilter);
+        double indexedYear = averageMillis(yearFilter);
+
+        jdbcTemplate.execute("drop index if exists idx_book_price_id");
+        jdbcTemplate.execute("drop index if exists idx_book_year_id");
+        double scanPrice = averageMillis(priceFilter);
+        double scanYear = averageMillis(yearFilter);
+
+        System.out.printf("%,d rows, first page of 100%n", ROWS);
+        System.out.printf("price ~10-20 by price: indexed %.2f ms, scan %.2f ms%n", indexedPrice, scanPrice);
+        System.out.printf("year >= ~2015 by year: indexed %.2f ms, scan %.2f ms%n", indexedYear, scanYear);
+    }
+}
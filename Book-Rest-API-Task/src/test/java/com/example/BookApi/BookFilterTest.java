@@ -0,0 +1,135 @@
+package com.example.BookApi;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookFields;
+import com.example.BookApi.classes.BookFieldsPage;
+import com.example.BookApi.classes.BookFilter;
+import com.example.BookApi.classes.BookPage;
+import com.example.BookApi.repositories.BookRepository;
+import com.example.BookApi.services.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class BookFilterTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAllInBatch();
+        bookRepository.saveAll(List.of(
+                new Book(null, "Algorithms", "Thomas H. Cormen", 15.0, 2016),
+                new Book(null, "Data Structures", "Thomas H. Cormen", 12.0, 2018),
+                new Book(null, "Java", "James Gosling", 15.0, 2019),
+                new Book(null, "Spring Boot", "Craig Walls", 25.0, 2020),
+                new Book(null, "Clean Code", "Robert C. Martin", 18.0, 2008),
+                new Book(null, "Refactoring", "Martin Fowler", 10.0, 2018)));
+    }
+
+    private List<String> collectTitles(BookFilter filter, int limit) {
+        List<String> titles = new ArrayList<>();
+        String after = null;
+        do {
+            BookPage page = bookService.getBooksPage(filter, after, limit);
+            page.getBooks().forEach(book -> titles.add(book.getTitle()));
+            after = page.getNextCursor();
+        } while (after != null);
+        return titles;
+    }
+
+    @Test
+    void testPriceAndYearRange_SortedByPrice() {
+        BookFilter filter = new BookFilter(10.0, 20.0, 2015, null, "price");
+        assertEquals(List.of("Refactoring", "Data Structures", "Algorithms", "Java"), collectTitles(filter, 3));
+    }
+
+    @Test
+    void testYearRange_SortedByYearDescending() {
+        BookFilter filter = new BookFilter(null, null, 2016, 2019, "-year");
+        assertEquals(List.of("Java", "Data Structures", "Refactoring", "Algorithms"), collectTitles(filter, 1));
+    }
+
+    @Test
+    void testStreamBooks_AppliesFilter() {
+        List<String> titles = new ArrayList<>();
+        bookService.streamBooks(new BookFilter(20.0, null, null, null, "id"), book -> titles.add(book.getTitle()));
+        assertEquals(List.of("Spring Boot"), titles);
+    }
+
+    private List<Map<String, Object>> collectFields(BookFilter filter, int limit, BookFields fields) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        String after = null;
+        do {
+            BookFieldsPage page = bookService.getBookFieldsPage(filter, after, limit, fields);
+            rows.addAll(page.getBooks());
+            after = page.getNextCursor();
+        } while (after != null);
+        return rows;
+    }
+
+    @Test
+    void testFieldsPages_FollowSameOrderAsFullPages() {
+        BookFilter filter = new BookFilter(10.0, 20.0, 2015, null, "price");
+        List<Map<String, Object>> rows = collectFields(filter, 3, BookFields.parse("title"));
+        assertEquals(List.of("Refactoring", "Data Structures", "Algorithms", "Java"),
+                rows.stream().map(row -> row.get("title")).toList());
+        assertEquals(Set.of("title"), rows.get(0).keySet());
+
+        List<Map<String, Object>> defaultOrder = collectFields(new BookFilter(), 4, BookFields.parse("title,id"));
+        assertEquals(6, defaultOrder.size());
+        assertEquals(List.of("title", "id"), List.copyOf(defaultOrder.get(0).keySet()));
+    }
+
+    @Test
+    void testStreamBookFields_AppliesFilterAndSort() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        bookService.streamBookFields(new BookFilter(null, 15.0, null, null, "-price"), BookFields.parse("author,bookPrice"), rows::add);
+        assertEquals(List.of(Map.of("author", "Thomas H. Cormen", "bookPrice", 15.0), Map.of("author", "James Gosling", "bookPrice", 15.0),
+                Map.of("author", "Thomas H. Cormen", "bookPrice", 12.0), Map.of("author", "Martin Fowler", "bookPrice", 10.0)), rows);
+    }
+
+    @Test
+    void testUnknownField() {
+        assertThrows(IllegalArgumentException.class, () -> BookFields.parse("title,version"));
+        assertThrows(IllegalArgumentException.class, () -> BookFields.parse(" , "));
+    }
+
+    @Test
+    void testInvalidCursor() {
+        BookFilter filter = new BookFilter(null, null, null, null, "price");
+        assertThrows(IllegalArgumentException.class, () -> bookService.getBooksPage(filter, "999999", 2));
+        assertThrows(IllegalArgumentException.class, () -> bookService.getBooksPage(filter, "cheap_3", 2));
+        assertThrows(IllegalArgumentException.class, () -> bookService.getBooksPage(new BookFilter(), "15.0_3", 2));
+    }
+
+    // The cursor carries the sort value, so changing or deleting the last book served moves nothing
+    @Test
+    void testCursorBookChangedOrDeleted_NextPageUnaffected() {
+        BookFilter filter = new BookFilter(null, null, null, null, "price");
+        BookPage first = bookService.getBooksPage(filter, null, 2);
+        assertEquals(List.of("Refactoring", "Data Structures"), first.getBooks().stream().map(Book::getTitle).toList());
+
+        Book last = first.getBooks().get(1);
+        bookService.updateBook(last.getId(), new Book(null, last.getTitle(), last.getAuthor(), 30.0, last.getYearPublished()));
+        assertEquals(List.of("Algorithms", "Java"),
+                bookService.getBooksPage(filter, first.getNextCursor(), 2).getBooks().stream().map(Book::getTitle).toList());
+
+        bookService.deleteBook(last.getId());
+        assertEquals(List.of("Algorithms", "Java"),
+                bookService.getBooksPage(filter, first.getNextCursor(), 2).getBooks().stream().map(Book::getTitle).toList());
+    }
+}
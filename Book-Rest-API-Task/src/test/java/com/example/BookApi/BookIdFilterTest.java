@@ -0,0 +1,60 @@
+package com.example.BookApi;
+
+import com.example.BookApi.services.BookIdFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookIdFilterTest {
+
+    @Test
+    void testNotReady_ReportsEveryIdAsPresent() {
+        BookIdFilter filter = new BookIdFilter(1000, 0.01);
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContain(42L));
+    }
+
+    @Test
+    void testNoFalseNegatives() {
+        BookIdFilter filter = new BookIdFilter(10_000, 0.01);
+        LongStream.rangeClosed(1, 5_000).forEach(filter::add);
+        filter.markReady(5_000);
+        filter.add(20_000L);
+
+        assertTrue(LongStream.rangeClosed(1, 5_000).allMatch(filter::mightContain));
+        assertTrue(filter.mightContain(20_000L));
+    }
+
+    @Test
+    void testFalsePositiveRateStaysNearTarget() {
+        BookIdFilter filter = new BookIdFilter(10_000, 0.01);
+        LongStream.rangeClosed(1, 10_000).map(i -> i * 20).forEach(filter::add);
+        filter.markReady(200_000);
+
+        long falsePositives = LongStream.rangeClosed(1, 200_000).filter(id -> id % 20 != 0).filter(filter::mightContain).count();
+
+        assertTrue(falsePositives < 190_000 * 2 / 100, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void testEmptyFilter_RejectsEverythingScanned() {
+        BookIdFilter filter = new BookIdFilter(1000, 0.01);
+        filter.markReady(100);
+        assertFalse(filter.mightContain(1L));
+        assertFalse(filter.mightContain(100L));
+    }
+
+    // Inserted by another writer after the scan, the filter can't have seen it
+    @Test
+    void testIdsAboveTheScan_MightBePresent() {
+        BookIdFilter filter = new BookIdFilter(1000, 0.01);
+        LongStream.rangeClosed(1, 100).forEach(filter::add);
+        filter.markReady(100);
+        assertTrue(filter.mightContain(101L));
+
+        filter.markReady(200);
+        assertFalse(filter.mightContain(101L));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.BookApi;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.services.BookService;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A database from before book_seq, upgraded with ddl-auto=update and the table-backed generator Hibernate uses on MySQL
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + BookIdSequenceTest.URL,
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect",
+        "spring.jpa.hibernate.ddl-auto=update"})
+public class BookIdSequenceTest {
+
+    static final String URL = "jdbc:h2:mem:sequence-upgrade;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    static {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(URL);
+        dataSource.setUser("sa");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table book (id bigint primary key, title varchar(255), author varchar(255), "
+                + "book_price double, year_published int, version bigint)");
+        jdbcTemplate.update("insert into book values (1, 'First', 'Author', 10.0, 2000, 0), (120, 'Last', 'Author', 10.0, 2000, 0)");
+    }
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testSequenceSeededAboveExistingIds() {
+        assertEquals(120 + Book.ID_ALLOCATION_SIZE, jdbcTemplate.queryForObject("select next_val from book_seq", Long.class));
+        assertEquals(121, bookService.addBook(new Book(null, "After upgrade", "Author", 12.0, 2024)).getId());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.BookApi;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookImportResult;
+import com.example.BookApi.repositories.BookRepository;
+import com.example.BookApi.services.BookImportService;
+import com.example.BookApi.services.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares insert throughput of POST /books/batch against calling addBook once per record.
+ * Not picked up by the default surefire includes, run it with: mvn test -Dtest=BookImportBenchmark
+ * Add -Dbenchmark.rows=N to change the row count.
+ */
+@SpringBootTest
+@Tag("benchmark")
+public class BookImportBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 20_000);
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAllInBatch();
+    }
+
+    private static List<Book> books() {
+        List<Book> books = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            books.add(new Book(null, "Title " + i, "Author " + (i % 500), 10.0 + i % 90, 1950 + i % 75));
+        }
+        return books;
+    }
+
+    @Test
+    void compareBatchImportWithAddBookLoop() {
+        List<Book> loopBooks = books();
+        long start = System.nanoTime();
+        for (Book book : loopBooks) {
+            bookService.addBook(book);
+        }
+        double loopRowsPerSecond = ROWS / ((System.nanoTime() - start) / 1e9);
+        bookRepository.deleteAllInBatch();
+
+        List<Book> batchBooks = books();
+        start = System.nanoTime();
+        List<BookImportResult> results = bookImportService.importBooks(batchBooks.iterator());
+        double batchRowsPerSecond = ROWS / ((System.nanoTime() - start) / 1e9);
+
+        assertEquals(ROWS, results.stream().filter(result -> result.getStatus() == BookImportResult.Status.CREATED).count());
+        assertEquals(ROWS, bookRepository.count());
+        System.out.printf("addBook loop: %,.0f rows/sec%n", loopRowsPerSecond);
+        System.out.printf("batch import: %,.0f rows/sec (%.1fx)%n", batchRowsPerSecond, batchRowsPerSecond / loopRowsPerSecond);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.BookApi;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookImportResult;
+import com.example.BookApi.repositories.BookRepository;
+import com.example.BookApi.services.BookCatalogVersion;
+import com.example.BookApi.services.BookChangeFeed;
+import com.example.BookApi.services.BookIdFilter;
+import com.example.BookApi.services.BookImportService;
+import com.example.BookApi.services.BookSearchIndex;
+import com.example.BookApi.services.BookStatistics;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class BookImportServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BookIdFilter bookIdFilter;
+
+    private BookChangeFeed bookChangeFeed;
+
+    private BookImportService bookImportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        bookIdFilter = new BookIdFilter(1000, 0.01);
+        bookIdFilter.markReady(0);
+        bookChangeFeed = new BookChangeFeed(100, Runnable::run);
+        bookImportService = new BookImportService(bookRepository, bookIdFilter, new BookSearchIndex(), new BookStatistics(),
+                mock(BookCatalogVersion.class),
+                bookChangeFeed, entityManager,
+                Validation.buildDefaultValidatorFactory().getValidator(), transactionManager, 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assignIdsOnSave() {
+        AtomicLong sequence = new AtomicLong();
+        when(bookRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0, List.class);
+            books.forEach(book -> book.setId(sequence.incrementAndGet()));
+            return books;
+        });
+    }
+
+    @Test
+    void testImportBooks_InsertsInBatches() {
+        assignIdsOnSave();
+        List<Book> books = List.of(
+                new Book(null, "Algorithms", "Thomas H. Cormen", 200.0, 1990),
+                new Book(null, "Data Structures", "Thomas H. Cormen", 250.0, 1995),
+                new Book(null, "Java", "James Gosling", 300.0, 1999));
+
+        List<BookImportResult> results = bookImportService.importBooks(books.iterator());
+
+        assertEquals(3, results.size());
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == BookImportResult.Status.CREATED));
+        assertEquals(List.of(1L, 2L, 3L), results.stream().map(BookImportResult::getId).toList());
+        assertTrue(bookIdFilter.mightContain(3L));
+        verify(bookRepository, times(2)).saveAll(anyList());
+        verify(entityManager, times(2)).clear();
+        assertEquals(3, bookChangeFeed.getSequence());
+    }
+
+    @Test
+    void testImportBooks_ReportsInvalidRecords() {
+        assignIdsOnSave();
+        List<Book> books = List.of(
+                new Book(null, "", "Thomas H. Cormen", 200.0, 1990),
+                new Book(null, "Java", "James Gosling", 300.0, 1999));
+
+        List<BookImportResult> results = bookImportService.importBooks(books.iterator());
+
+        assertEquals(BookImportResult.Status.INVALID, results.get(0).getStatus());
+        assertEquals(List.of("Title is required"), results.get(0).getMessages());
+        assertEquals(BookImportResult.Status.CREATED, results.get(1).getStatus());
+        assertEquals(1, results.get(1).getIndex());
+        assertEquals(1L, results.get(1).getId());
+        verify(bookRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void testImportBooks_DataAccessException() {
+        when(bookRepository.saveAll(anyList())).thenThrow(new DataAccessException("Error") {
+        });
+        List<Book> books = List.of(new Book(null, "Java", "James Gosling", 300.0, 1999));
+
+        List<BookImportResult> results = bookImportService.importBooks(books.iterator());
+
+        assertEquals(BookImportResult.Status.FAILED, results.get(0).getStatus());
+        assertEquals(List.of("Database error occurred while importing the book."), results.get(0).getMessages());
+        assertEquals(0, bookChangeFeed.getSequence());
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.BookApi;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookImportResult;
+import com.example.BookApi.classes.BookIngestStatus;
+import com.example.BookApi.exceptionHandler.BookIngestQueueFullException;
+import com.example.BookApi.exceptionHandler.BookIngestUnavailableException;
+import com.example.BookApi.services.BookImportService;
+import com.example.BookApi.services.BookIngestQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BookIngestQueueTest {
+
+    @Mock
+    private BookImportService bookImportService;
+
+    private BookIngestQueue bookIngestQueue;
+
+    // Sizes of the batches the writer handed to the import
+    private final List<Integer> batches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseWriter = new CountDownLatch(1);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        AtomicLong ids = new AtomicLong();
+        when(bookImportService.importBooks(any(Iterator.class))).thenAnswer(invocation -> {
+            firstBatchStarted.countDown();
+            assertTrue(releaseWriter.await(10, TimeUnit.SECONDS));
+            Iterator<Book> books = invocation.getArgument(0);
+            List<BookImportResult> results = new ArrayList<>();
+            while (books.hasNext()) {
+                books.next();
+                results.add(BookImportResult.created(results.size(), ids.incrementAndGet()));
+            }
+            batches.add(results.size());
+            return results;
+        });
+        bookIngestQueue = new BookIngestQueue(bookImportService, 2, 100, Duration.ofMinutes(1), 1000, Duration.ofSeconds(10));
+    }
+
+    private static Book book(int i) {
+        return new Book(null, "Queued " + i, "Queue Author", 10.0, 2000);
+    }
+
+    @Test
+    void testQueuedBooks_CoalescedIntoOneBatch_AndFullQueueRefused() throws Exception {
+        bookIngestQueue.start();
+        BookIngestStatus first = bookIngestQueue.submit(book(1));
+        assertTrue(firstBatchStarted.await(10, TimeUnit.SECONDS));
+
+        // The writer is busy with the first book, two more fill the queue and the fourth is turned away
+        BookIngestStatus second = bookIngestQueue.submit(book(2));
+        BookIngestStatus third = bookIngestQueue.submit(book(3));
+        assertEquals(BookIngestStatus.Status.QUEUED, bookIngestQueue.getStatus(second.getTrackingId()).orElseThrow().getStatus());
+        assertThrows(BookIngestQueueFullException.class, () -> bookIngestQueue.submit(book(4)));
+
+        releaseWriter.countDown();
+        bookIngestQueue.stop();
+
+        assertEquals(List.of(1, 2), batches);
+        for (BookIngestStatus status : List.of(first, second, third)) {
+            BookIngestStatus done = bookIngestQueue.getStatus(status.getTrackingId()).orElseThrow();
+            assertEquals(BookIngestStatus.Status.CREATED, done.getStatus());
+            assertNotNull(done.getId());
+        }
+    }
+
+    @Test
+    void testNotStarted_Unavailable() {
+        assertThrows(BookIngestUnavailableException.class, () -> bookIngestQueue.submit(book(1)));
+    }
+
+    @Test
+    void testStop_DrainsQueueBeforeReturning_ThenRefuses() throws Exception {
+        bookIngestQueue.start();
+        BookIngestStatus first = bookIngestQueue.submit(book(1));
+        assertTrue(firstBatchStarted.await(10, TimeUnit.SECONDS));
+        BookIngestStatus second = bookIngestQueue.submit(book(2));
+
+        Thread stopping = new Thread(bookIngestQueue::stop);
+        stopping.start();
+        // Nothing new is taken once stopping has begun
+        while (bookIngestQueue.isRunning())
+            Thread.onSpinWait();
+        assertThrows(BookIngestUnavailableException.class, () -> bookIngestQueue.submit(book(3)));
+
+        releaseWriter.countDown();
+        stopping.join(10_000);
+        assertFalse(stopping.isAlive());
+        assertEquals(BookIngestStatus.Status.CREATED, bookIngestQueue.getStatus(first.getTrackingId()).orElseThrow().getStatus());
+        assertEquals(BookIngestStatus.Status.CREATED, bookIngestQueue.getStatus(second.getTrackingId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailedBatch_ReportedAndWriterKeepsGoing() throws Exception {
+        releaseWriter.countDown();
+        when(bookImportService.importBooks(any(Iterator.class)))
+                .thenThrow(new IllegalStateException("boom"))
+                .thenReturn(List.of(BookImportResult.created(0, 9L)));
+        bookIngestQueue.start();
+        BookIngestStatus failed = bookIngestQueue.submit(book(1));
+        waitUntilWritten(failed);
+        BookIngestStatus created = bookIngestQueue.submit(book(2));
+        bookIngestQueue.stop();
+
+        BookIngestStatus failure = bookIngestQueue.getStatus(failed.getTrackingId()).orElseThrow();
+        assertEquals(BookIngestStatus.Status.FAILED, failure.getStatus());
+        assertEquals(List.of("Database error occurred while adding the book."), failure.getMessages());
+        assertEquals(9L, bookIngestQueue.getStatus(created.getTrackingId()).orElseThrow().getId());
+        assertTrue(bookIngestQueue.getStatus("unknown").isEmpty());
+    }
+
+    private void waitUntilWritten(BookIngestStatus status) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (bookIngestQueue.getStatus(status.getTrackingId()).orElseThrow().getStatus() == BookIngestStatus.Status.QUEUED) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.BookApi;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load test of GET /books?limit=20 with 1k and 5k concurrent clients, against the
+ * platform thread pool, virtual-thread mode and the reactive profile. Besides throughput and latency
+ * it reports the heap held per open connection (client and server side, measured mid-run) and peak threads.
+ * Not picked up by the default surefire includes, run it with: mvn test -Dtest=BookLoadBenchmark
+ * Virtual threads need a Java 21+ runtime, on older JVMs the second run only adds the connection limiter.
+ * Against the in-memory H2 database queries barely block, point -Dbenchmark.db.url at MySQL for realistic numbers.
+ */
+@Tag("benchmark")
+public class BookLoadBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int[] CLIENTS = Arrays.stream(System.getProperty("benchmark.clients", "1000,5000").split(","))
+            .mapToInt(Integer::parseInt).toArray();
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(15);
+
+    // Shared so connections are reused between runs instead of piling up in TIME_WAIT
+    private static final HttpClient CLIENT = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private enum Mode { PLATFORM, VIRTUAL, REACTIVE }
+
+    @Test
+    void compareExecutionModes() throws Exception {
+        System.out.println("Java " + Runtime.version());
+        for (Mode mode : Mode.values()) {
+            try (ConfigurableApplicationContext context = start(mode)) {
+                seed(context, mode);
+                URI base = URI.create("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/books");
+                for (int clients : CLIENTS) {
+                    run(base, clients, WARMUP);
+                    Result result = run(base, clients, MEASUREMENT);
+                    System.out.printf("%s, %,d clients: %,.0f req/s, p50 %.1f ms, p99 %.1f ms, %,.1f KB/connection, %d peak threads, %d errors%n",
+                            mode, clients, result.throughput(), result.p50(), result.p99(), result.heapPerClient() / 1024.0,
+                            result.peakThreads(), result.errors());
+                }
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(Mode mode) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(BookApiApplication.class)
+                .properties("server.port=0", "spring.threads.virtual.enabled=" + (mode == Mode.VIRTUAL));
+        if (mode == Mode.REACTIVE)
+            return builder.profiles("reactive").run();
+        return builder.properties("spring.datasource.url=" + System.getProperty("benchmark.db.url", "jdbc:h2:mem:load-" + mode + ";MODE=MySQL"))
+                .run();
+    }
+
+    private static void seed(ConfigurableApplicationContext context, Mode mode) {
+        if (mode == Mode.REACTIVE) {
+            DatabaseClient databaseClient = context.getBean(DatabaseClient.class);
+            databaseClient.sql("delete from book").then().block();
+            Flux.range(1, ROWS)
+                    .concatMap(i -> databaseClient.sql("insert into book (id, title, author, book_price, year_published, version) "
+                                    + "values (:id, :title, :author, :price, :year, 0)")
+                            .bind("id", (long) i).bind("title", "Title " + i).bind("author", "Author " + (i % 500))
+                            .bind("price", i % 1_000 / 10.0).bind("year", 1900 + i % 125)
+                            .then())
+                    .blockLast();
+            return;
+        }
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("delete from book");
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 1; i <= ROWS; i++) {
+            rows.add(new Object[]{(long) i, "Title " + i, "Author " + (i % 500), i % 1_000 / 10.0, 1900 + i % 125});
+        }
+        jdbcTemplate.batchUpdate("insert into book (id, title, author, book_price, year_published, version) values (?, ?, ?, ?, ?, 0)", rows);
+    }
+
+    // Every client sends its next request as soon as the previous one completes
+    private static Result run(URI base, int clients, Duration duration) throws Exception {
+        long heapBefore = usedHeapAfterGc();
+        THREADS.resetPeakThreadCount();
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<List<Long>> latencies = new ArrayList<>(clients);
+        List<CompletableFuture<Void>> loops = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            List<Long> own = new ArrayList<>();
+            latencies.add(own);
+            loops.add(loop(CLIENT, base, deadline, own, errors));
+        }
+        long start = System.nanoTime();
+        // Heap with every client connected, compared against the heap before the run started
+        Thread.sleep(duration.toMillis() / 2);
+        long heapUnderLoad = usedHeapAfterGc();
+        CompletableFuture.allOf(loops.toArray(CompletableFuture[]::new)).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long[] all = latencies.stream().flatMap(List::stream).mapToLong(Long::longValue).sorted().toArray();
+        return new Result(all.length / seconds, percentile(all, 0.50), percentile(all, 0.99),
+                Math.max(0, heapUnderLoad - heapBefore) / (double) clients, THREADS.getPeakThreadCount(), errors.get());
+    }
+
+    private static CompletableFuture<Void> loop(HttpClient client, URI base, long deadline, List<Long> latencies, AtomicLong errors) {
+        if (System.nanoTime() >= deadline)
+            return CompletableFuture.completedFuture(null);
+        long after = ThreadLocalRandom.current().nextLong(ROWS);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "?limit=20&after=" + after)).build();
+        long sent = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    if (failure != null || response.statusCode() != 200)
+                        errors.incrementAndGet();
+                    else
+                        latencies.add(System.nanoTime() - sent);
+                    return null;
+                })
+                .thenCompose(ignored -> loop(client, base, deadline, latencies, errors));
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0)
+            return Double.NaN;
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+    }
+
+    private record Result(double throughput, double p50, double p99, double heapPerClient, int peakThreads, long errors) {
+    }
+}
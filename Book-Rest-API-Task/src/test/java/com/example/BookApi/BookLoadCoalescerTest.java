@@ -0,0 +1,69 @@
+package com.example.BookApi;
+
+import com.example.BookApi.services.BookLoadCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookLoadCoalescerTest {
+
+    private final BookLoadCoalescer coalescer = new BookLoadCoalescer();
+
+    @Test
+    void testFollowersShareLeaderFailure() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("Database down");
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> coalescer.load("lookup", 1L, () -> {
+            loading.countDown();
+            await(release);
+            throw failure;
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> coalescer.load("lookup", 1L, () -> "never"));
+        while (coalescer.getCollapsed("lookup") == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertSame(failure, assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+    }
+
+    @Test
+    void testDifferentKeysAndLaterCalls_LoadSeparately() {
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals(1, coalescer.load("lookup", 1L, loads::incrementAndGet));
+        assertEquals(2, coalescer.load("lookup", 1L, loads::incrementAndGet));
+        assertEquals(3, coalescer.load("lookup", 2L, loads::incrementAndGet));
+        assertEquals(3, coalescer.getLoaded("lookup"));
+        assertEquals(0, coalescer.getCollapsed("lookup"));
+    }
+
+    @Test
+    void testPublishesCallCounts() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        coalescer.load("before", 1L, () -> "bound");
+        coalescer.bindTo(registry);
+        coalescer.load("after", 1L, () -> "bound");
+
+        assertEquals(1.0, registry.get("books.coalescer.calls").tag("operation", "before").tag("result", "loaded").functionCounter().count());
+        assertEquals(1.0, registry.get("books.coalescer.calls").tag("operation", "after").tag("result", "loaded").functionCounter().count());
+        assertEquals(0.0, registry.get("books.coalescer.calls").tag("operation", "after").tag("result", "collapsed").functionCounter().count());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.BookApi;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookFilter;
+import com.example.BookApi.exceptionHandler.BookNotFoundException;
+import com.example.BookApi.repositories.BookRepository;
+import com.example.BookApi.services.BookImportService;
+import com.example.BookApi.services.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+public class BookMetricsTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void testOperationsAreTimed() {
+        Book book = bookService.addBook(new Book(null, "Metrics", "Author", 10.0, 2000));
+        bookService.getBookById(book.getId());
+        bookService.streamBooks(new BookFilter(), ignored -> {
+        });
+
+        assertEquals(1, meterRegistry.get("books.operation").tag("operation", "addBook").tag("outcome", "success").timer().count());
+        assertTrue(meterRegistry.get("books.operation").tag("operation", "getBookById").tag("outcome", "success").timer().count() >= 1);
+        long rows = bookRepository.count();
+        assertEquals(rows, (long) meterRegistry.get("books.rows.returned").tag("operation", "streamBooks").summary().max());
+    }
+
+    @Test
+    void testIteratorArgumentsPassThrough() {
+        // Stream iterators implement Consumer too, they must reach the import untouched
+        Iterator<Book> books = Stream.of(new Book(null, "Imported", "Author", 5.0, 2001)).iterator();
+        assertEquals(1, bookImportService.importBooks(books).size());
+        assertEquals(1, (long) meterRegistry.get("books.rows.returned").tag("operation", "importBooks").summary().max());
+    }
+
+    @Test
+    void testErrorsCountedByRootCause() {
+        assertThrows(BookNotFoundException.class, () -> bookService.getBookById(123_456L));
+        assertEquals(1.0, meterRegistry.get("books.operation.errors")
+                .tag("operation", "getBookById").tag("cause", "BookNotFoundException").counter().count());
+
+        // An invalid book gets past the service and is only rejected by Hibernate when flushed
+        assertThrows(ConstraintViolationException.class, () -> bookService.addBook(new Book(null, null, "Author", 1.0, 2000)));
+        assertEquals(1.0, meterRegistry.get("books.operation.errors")
+                .tag("operation", "addBook").tag("cause", "ConstraintViolationException").counter().count());
+    }
+
+    @Test
+    void testPrometheusEndpoint() {
+        bookService.getBooksByIds(List.of(1L, 2L));
+        String body = webTestClient.get().uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+        assertTrue(body.contains("books_operation_seconds_bucket{"), body);
+        assertTrue(body.contains("operation=\"getBooksByIds\""));
+        assertTrue(body.contains("hikaricp_connections_acquire_seconds"));
+        assertTrue(body.contains("hibernate_second_level_cache_requests_total{"), body);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.BookApi;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.services.BookSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.index(new Book(1L, "Introduction to Algorithms", "Thomas H. Cormen", 200.0, 1990));
+        index.index(new Book(2L, "Algorithms Unlocked", "Thomas H. Cormen", 40.0, 2013));
+        index.index(new Book(3L, "Java Concurrency in Practice", "Brian Goetz", 60.0, 2006));
+        index.index(new Book(4L, "The Java Programming Language", "James Gosling", 300.0, 1996));
+    }
+
+    private static List<Long> ids(List<Book> books) {
+        return books.stream().map(Book::getId).toList();
+    }
+
+    @Test
+    void testSearch_MatchesAllTermsAcrossTitleAndAuthor() {
+        assertEquals(List.of(1L, 2L), ids(index.search("algorithms cormen", 10)));
+        assertEquals(List.of(3L), ids(index.search("Java goetz", 10)));
+        assertTrue(index.search("java cormen", 10).isEmpty());
+    }
+
+    @Test
+    void testSearch_RanksTitleMatchesAboveAuthorMatches() {
+        index.index(new Book(5L, "Thinking in Patterns", "Java Smith", 20.0, 2004));
+        assertEquals(5L, ids(index.search("java", 10)).get(2));
+    }
+
+    @Test
+    void testSearch_IgnoresCaseAndPunctuationAndHonoursLimit() {
+        assertEquals(List.of(1L), ids(index.search("INTRODUCTION, to!", 10)));
+        assertEquals(1, index.search("algorithms", 1).size());
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    void testSearch_ReturnsCopies() {
+        index.search("gosling", 10).get(0).setTitle("Changed");
+        assertEquals("The Java Programming Language", index.search("gosling", 10).get(0).getTitle());
+    }
+
+    @Test
+    void testSuggest_MatchesPhraseStartAndLaterWords() {
+        assertEquals(List.of("Thomas H. Cormen"), index.suggest("thom", 10));
+        assertEquals(List.of("Thomas H. Cormen"), index.suggest("corm", 10));
+        assertEquals(List.of("Java Concurrency in Practice", "The Java Programming Language"), index.suggest("java", 10));
+        assertTrue(index.suggest("xyz", 10).isEmpty());
+    }
+
+    @Test
+    void testSuggest_RanksByNumberOfBooks() {
+        assertEquals("Thomas H. Cormen", index.suggest("t", 10).get(0));
+        assertEquals(1, index.suggest("t", 1).size());
+    }
+
+    @Test
+    void testReindexAndRemove() {
+        index.index(new Book(3L, "Java Puzzlers", "Joshua Bloch", 30.0, 2005));
+        assertTrue(index.search("goetz", 10).isEmpty());
+        assertEquals(List.of("Java Puzzlers", "The Java Programming Language"), index.suggest("java", 10));
+
+        index.remove(3L);
+        index.remove(99L);
+        assertTrue(index.search("puzzlers", 10).isEmpty());
+        assertTrue(index.suggest("josh", 10).isEmpty());
+    }
+}
@@ -1,22 +1,53 @@
 package com.example.BookApi;
 
 import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookChangeEvent;
+import com.example.BookApi.classes.BookFilter;
+import com.example.BookApi.classes.BookGroupStats;
+import com.example.BookApi.classes.BookLookupResult;
+import com.example.BookApi.classes.BookPage;
 import com.example.BookApi.exceptionHandler.BookNotFoundException;
+import com.example.BookApi.exceptionHandler.BookPreconditionFailedException;
 import com.example.BookApi.repositories.BookRepository;
+import com.example.BookApi.services.BookCache;
+import com.example.BookApi.services.BookCatalogVersion;
+import com.example.BookApi.services.BookChangeFeed;
+import com.example.BookApi.services.BookIdFilter;
+import com.example.BookApi.services.BookLoadCoalescer;
+import com.example.BookApi.services.BookSearchIndex;
+import com.example.BookApi.services.BookStatistics;
 import com.example.BookApi.services.BookService;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class BookServiceTest {
@@ -24,6 +55,33 @@ public class BookServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private BookCache bookCache = new BookCache(100, Duration.ofMinutes(5));
+
+    @Spy
+    private BookIdFilter bookIdFilter = new BookIdFilter(1000, 0.01);
+
+    @Spy
+    private BookSearchIndex bookSearchIndex = new BookSearchIndex();
+
+    @Spy
+    private BookStatistics bookStatistics = new BookStatistics();
+
+    @Mock
+    private BookCatalogVersion bookCatalogVersion;
+
+    @Spy
+    private BookLoadCoalescer bookLoadCoalescer = new BookLoadCoalescer();
+
+    @Spy
+    private BookChangeFeed bookChangeFeed = new BookChangeFeed(100, Runnable::run);
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private BookService bookService;
 
@@ -56,6 +114,33 @@ public class BookServiceTest {
         verify(bookRepository, times(1)).findAll();
     }
 
+    @Test
+    void testGetBooksPage_ConcurrentIdenticalCallsShareOneQuery() throws Exception {
+        CountDownLatch querying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3))).thenAnswer(invocation -> {
+            querying.countDown();
+            release.await();
+            return List.of(AlgorithmsBook, DataStructuresBook);
+        });
+
+        CompletableFuture<BookPage> leader = CompletableFuture.supplyAsync(() -> bookService.getBooksPage(new BookFilter(), null, 2));
+        assertTrue(querying.await(5, TimeUnit.SECONDS));
+        CompletableFuture<BookPage> follower = CompletableFuture.supplyAsync(() -> bookService.getBooksPage(new BookFilter(), null, 2));
+        while (bookLoadCoalescer.getCollapsed("getBooksPage") == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertSame(leader.get(5, TimeUnit.SECONDS), follower.get(5, TimeUnit.SECONDS));
+        verify(bookRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3));
+        assertEquals(1, bookLoadCoalescer.getLoaded("getBooksPage"));
+
+        // Once the query is done the next call queries again
+        bookService.getBooksPage(new BookFilter(), null, 2);
+        verify(bookRepository, times(2)).findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3));
+    }
+
     @Test
     void testGetAllBooks_DataAccessException() {
         when(bookRepository.findAll()).thenThrow(new DataAccessException("Error") {
@@ -69,28 +154,236 @@ public class BookServiceTest {
         verify(bookRepository, times(1)).findAll();
     }
 
+    @Test
+    void testGetBooksPage_HasNextPage() {
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3)))
+                .thenReturn(List.of(AlgorithmsBook, DataStructuresBook, JavaBook));
+
+        BookPage result = bookService.getBooksPage(new BookFilter(), null, 2);
+
+        assertEquals(List.of(AlgorithmsBook, DataStructuresBook), result.getBooks());
+        assertEquals(String.valueOf(DataStructuresBook.getId()), result.getNextCursor());
+    }
+
+    @Test
+    void testGetBooksPage_LastPage() {
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(3))).thenReturn(List.of(JavaBook));
+
+        BookPage result = bookService.getBooksPage(new BookFilter(), "2", 2);
+
+        assertEquals(List.of(JavaBook), result.getBooks());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void testGetBooksPage_InvalidLimit() {
+        assertThrows(IllegalArgumentException.class, () -> bookService.getBooksPage(new BookFilter(), null, 0));
+        assertThrows(IllegalArgumentException.class, () -> bookService.getBooksPage(new BookFilter(), null, BookService.MAX_PAGE_SIZE + 1));
+        verify(bookRepository, times(0)).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    @Test
+    void testGetBooksPage_UnsupportedSort() {
+        BookFilter filter = new BookFilter(null, null, null, null, "title");
+        assertThrows(IllegalArgumentException.class, () -> bookService.getBooksPage(filter, null, 10));
+    }
+
+    @Test
+    void testStreamAllBooks_DetachesEachBook() {
+        when(bookRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(AlgorithmsBook, DataStructuresBook, JavaBook));
+        List<Book> written = new ArrayList<>();
+
+        bookService.streamBooks(new BookFilter(), written::add);
+
+        assertEquals(List.of(AlgorithmsBook, DataStructuresBook, JavaBook), written);
+        verify(entityManager, times(3)).detach(any(Book.class));
+    }
+
+    @Test
+    void testStreamFilteredBooks_UsesFetchSizedStream() {
+        BookFilter filter = new BookFilter(150.0, null, null, null, "-price");
+        when(bookRepository.streamMatching(any(), eq(filter.toSort()))).thenReturn(Stream.of(JavaBook, DataStructuresBook));
+        List<Book> written = new ArrayList<>();
+
+        bookService.streamBooks(filter, written::add);
+
+        assertEquals(List.of(JavaBook, DataStructuresBook), written);
+        verify(bookRepository, never()).findBy(any(Specification.class), any());
+    }
+
     @Test
     void testGetBookById_BookExists() {
-        when(bookRepository.existsById(1L)).thenReturn(true);
         when(bookRepository.findById(1L)).thenReturn(Optional.of(AlgorithmsBook));
         Optional<Book> result = bookService.getBookById(1L);
         assertTrue(result.isPresent());
         assertEquals(AlgorithmsBook, result.get());
         verify(bookRepository, times(1)).findById(1L);
+        verify(bookRepository, times(0)).existsById(1L);
     }
 
     @Test
     void testGetBookById_BookNotFound() {
-        when(bookRepository.existsById(99L)).thenReturn(false);
+        when(bookRepository.findById(99L)).thenReturn(Optional.empty());
 
         Exception exception = assertThrows(BookNotFoundException.class, () -> {
             bookService.getBookById(99L);
         });
 
         assertEquals("Book with ID 99 not found", exception.getMessage());
+        verify(bookRepository, times(1)).findById(99L);
+    }
+
+    @Test
+    void testGetBookById_UnknownIdSkipsDatabase() {
+        Stream.of(1L, 2L, 3L).forEach(bookIdFilter::add);
+        bookIdFilter.markReady(100L);
+
+        Exception exception = assertThrows(BookNotFoundException.class, () -> bookService.getBookById(99L));
+
+        assertEquals("Book with ID 99 not found", exception.getMessage());
+        assertEquals(0, exception.getStackTrace().length);
         verify(bookRepository, times(0)).findById(99L);
     }
 
+    @Test
+    void testGetBookById_IdAboveScanChecksDatabase() {
+        Stream.of(1L, 2L, 3L).forEach(bookIdFilter::add);
+        bookIdFilter.markReady(3L);
+        Book insertedElsewhere = new Book(4L, "Refactoring", "Martin Fowler", 45.0, 1999);
+        when(bookRepository.findById(4L)).thenReturn(Optional.of(insertedElsewhere));
+
+        assertEquals(insertedElsewhere, bookService.getBookById(4L).orElseThrow());
+    }
+
+    @Test
+    void testRefreshIdFilter_LearnsIdsWrittenElsewhere() {
+        Stream.of(1L, 2L, 3L).forEach(bookIdFilter::add);
+        bookIdFilter.markReady(100L);
+        when(bookRepository.streamAllIds()).thenReturn(Stream.of(1L, 2L, 3L, 50L, 120L));
+
+        bookService.refreshIdFilter();
+
+        assertTrue(bookIdFilter.mightContain(50L));
+        assertTrue(bookIdFilter.mightContain(120L));
+        assertFalse(bookIdFilter.mightContain(110L));
+    }
+
+    @Test
+    void testInitializeIndexes() {
+        when(bookRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(AlgorithmsBook, DataStructuresBook, JavaBook));
+
+        bookService.initializeIndexes();
+
+        assertTrue(bookIdFilter.isReady());
+        assertTrue(bookIdFilter.mightContain(2L));
+        assertEquals(List.of(JavaBook.getId()), bookService.searchBooks("gosling", 10).stream().map(Book::getId).toList());
+    }
+
+    @Test
+    void testSearchIndex_FollowsAddUpdateDelete() {
+        Book book = new Book(7L, "Effective Java", "Joshua Bloch", 45.0, 2018);
+        when(bookRepository.save(any(Book.class))).thenReturn(book);
+        bookService.addBook(book);
+        assertEquals(List.of("Effective Java"), bookService.suggestBooks("effe", 10));
+
+        Book renamed = new Book(7L, "Java Puzzlers", "Joshua Bloch", 45.0, 2005);
+        when(bookRepository.findById(7L)).thenReturn(Optional.of(book));
+        bookService.updateBook(7L, renamed);
+        assertTrue(bookService.searchBooks("effective", 10).isEmpty());
+        assertEquals(1, bookService.searchBooks("puzzlers", 10).size());
+
+        when(bookRepository.existsById(7L)).thenReturn(true);
+        bookService.deleteBook(7L);
+        assertTrue(bookService.searchBooks("puzzlers", 10).isEmpty());
+        assertTrue(bookService.suggestBooks("jos", 10).isEmpty());
+    }
+
+    @Test
+    void testStatistics_FollowAddUpdateDelete() {
+        Book book = new Book(7L, "Effective Java", "Joshua Bloch", 45.0, 2018);
+        when(bookRepository.save(any(Book.class))).thenReturn(book);
+        bookService.addBook(book);
+        assertEquals(1, bookService.getStatistics("author").get(0).getCount());
+
+        when(bookRepository.findById(7L)).thenReturn(Optional.of(book));
+        bookService.updateBook(7L, new Book(7L, "Java Puzzlers", "Neal Gafter", 30.0, 2005));
+        List<BookGroupStats> byAuthor = bookService.getStatistics("author");
+        assertEquals(List.of("Neal Gafter"), byAuthor.stream().map(BookGroupStats::getGroup).toList());
+        assertEquals(30.0, byAuthor.get(0).getMaxPrice());
+
+        when(bookRepository.deleteByIdAndVersion(7L, 0L)).thenReturn(1);
+        bookService.deleteBook(7L, 0L);
+        assertTrue(bookService.getStatistics("year").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> bookService.getStatistics("title"));
+    }
+
+    @Test
+    void testGetBookById_ServedFromCache() {
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(AlgorithmsBook));
+
+        bookService.getBookById(1L);
+        Optional<Book> result = bookService.getBookById(1L);
+
+        assertEquals(AlgorithmsBook, result.get());
+        verify(bookRepository, times(1)).findById(1L);
+        assertEquals(1, bookService.getCacheStats().getHits());
+        assertEquals(1, bookService.getCacheStats().getMisses());
+    }
+
+    @Test
+    void testUpdateBook_EvictsCachedBook() {
+        Book cachedBook = new Book(1L, "Algorithms", "Thomas H. Cormen", 200.0, 1990);
+        Book updatedBook = new Book(1L, "Algorithms_Updated", "Thomas H. Cormen", 200.0, 1990);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(cachedBook));
+        bookService.getBookById(1L);
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(updatedBook));
+        when(bookRepository.save(any(Book.class))).thenReturn(updatedBook);
+        bookService.updateBook(1L, updatedBook);
+
+        assertEquals("Algorithms_Updated", bookService.getBookById(1L).get().getTitle());
+        verify(bookCache, times(1)).evict(1L);
+    }
+
+    @Test
+    void testDeleteBook_EvictsCachedBook() {
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(AlgorithmsBook));
+        when(bookRepository.existsById(1L)).thenReturn(true);
+        bookService.getBookById(1L);
+
+        bookService.deleteBook(1L);
+        when(bookRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(BookNotFoundException.class, () -> bookService.getBookById(1L));
+        verify(bookChangeFeed).publish(BookChangeEvent.Type.DELETED, 1L, null);
+    }
+
+    @Test
+    void testGetBooksByIds_OneQueryForUncachedIds() {
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(AlgorithmsBook));
+        bookService.getBookById(1L);
+        when(bookRepository.findAllById(anyIterable())).thenReturn(List.of(JavaBook));
+
+        BookLookupResult result = bookService.getBooksByIds(List.of(3L, 1L, 99L, 3L));
+
+        assertEquals(List.of(JavaBook, AlgorithmsBook), result.getBooks());
+        assertEquals(List.of(99L), result.getMissingIds());
+        verify(bookRepository, times(1)).findAllById(List.of(3L, 99L));
+    }
+
+    @Test
+    void testGetBooksByIds_SkipsIdsRejectedByFilter() {
+        Stream.of(1L, 2L, 3L).forEach(bookIdFilter::add);
+        bookIdFilter.markReady(100L);
+        when(bookRepository.findAllById(anyIterable())).thenReturn(List.of(DataStructuresBook));
+
+        BookLookupResult result = bookService.getBooksByIds(List.of(2L, 99L));
+
+        assertEquals(List.of(DataStructuresBook), result.getBooks());
+        assertEquals(List.of(99L), result.getMissingIds());
+        verify(bookRepository, times(1)).findAllById(List.of(2L));
+    }
+
     @Test
     void testAddBook_Success() {
         when(bookRepository.save(any(Book.class))).thenReturn(DataStructuresBook);
@@ -99,6 +392,8 @@ public class BookServiceTest {
         assertNotNull(result);
         assertEquals(result, DataStructuresBook);
         verify(bookRepository, times(1)).save(DataStructuresBook);
+        verify(bookIdFilter, times(1)).add(DataStructuresBook.getId());
+        verify(bookChangeFeed).publish(BookChangeEvent.Type.CREATED, DataStructuresBook.getId(), DataStructuresBook);
     }
 
     @Test
@@ -142,6 +437,86 @@ public class BookServiceTest {
         verify(bookRepository, times(0)).save(any(Book.class));
     }
 
+    @Test
+    void testUpdateBook_VersionMismatch() {
+        Book storedBook = new Book(1L, "Algorithms", "Thomas H. Cormen", 200.0, 1990);
+        storedBook.setVersion(5L);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(storedBook));
+
+        assertThrows(BookPreconditionFailedException.class, () -> bookService.updateBook(1L, AlgorithmsBook, 4L));
+        verify(bookRepository, times(0)).save(any(Book.class));
+    }
+
+    @Test
+    void testPatchBook_OnlySuppliedFields() {
+        Book storedBook = new Book(1L, "Algorithms", "Thomas H. Cormen", 200.0, 1990);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(storedBook));
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Book result = bookService.patchBook(1L, Map.of("bookPrice", 180, "title", "Algorithms, 4th"), null);
+
+        assertEquals("Algorithms, 4th", result.getTitle());
+        assertEquals(180.0, result.getBookPrice());
+        assertEquals("Thomas H. Cormen", result.getAuthor());
+        assertEquals(1990, result.getYearPublished());
+        verify(bookRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testPatchBook_NullClearsRequiredField() {
+        Book storedBook = new Book(1L, "Algorithms", "Thomas H. Cormen", 200.0, 1990);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(storedBook));
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("author", null);
+
+        assertThrows(ConstraintViolationException.class, () -> bookService.patchBook(1L, patch, null));
+        verify(bookRepository, times(0)).save(any(Book.class));
+    }
+
+    @Test
+    void testPatchBook_RejectsUnknownFieldsAndIdChanges() {
+        Book storedBook = new Book(1L, "Algorithms", "Thomas H. Cormen", 200.0, 1990);
+        storedBook.setVersion(2L);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(storedBook));
+
+        assertThrows(IllegalArgumentException.class, () -> bookService.patchBook(1L, Map.of("isbn", "123"), null));
+        assertThrows(IllegalArgumentException.class, () -> bookService.patchBook(1L, Map.of("id", 7), null));
+        assertThrows(IllegalArgumentException.class, () -> bookService.patchBook(1L, Map.of("yearPublished", "1990"), null));
+        assertThrows(BookPreconditionFailedException.class, () -> bookService.patchBook(1L, Map.of("title", "X"), 1L));
+        verify(bookRepository, times(0)).save(any(Book.class));
+    }
+
+    @Test
+    void testWrites_BumpCatalogVersion() {
+        when(bookRepository.save(any(Book.class))).thenReturn(JavaBook);
+        bookService.addBook(JavaBook);
+        // Flushed first, so the book row is written before the catalog row is locked
+        InOrder inOrder = inOrder(entityManager, bookCatalogVersion);
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(bookCatalogVersion).increment();
+    }
+
+    @Test
+    void testDeleteBook_IfMatchWithoutRead() {
+        when(bookRepository.deleteByIdAndVersion(1L, 2L)).thenReturn(1);
+
+        bookService.deleteBook(1L, 2L);
+
+        verify(bookRepository, times(0)).existsById(1L);
+        verify(bookRepository, times(0)).findById(1L);
+        verify(bookCatalogVersion, times(1)).increment();
+    }
+
+    @Test
+    void testDeleteBook_IfMatchStaleVersion() {
+        when(bookRepository.deleteByIdAndVersion(1L, 2L)).thenReturn(0);
+        when(bookRepository.existsById(1L)).thenReturn(true);
+        assertThrows(BookPreconditionFailedException.class, () -> bookService.deleteBook(1L, 2L));
+
+        when(bookRepository.existsById(1L)).thenReturn(false);
+        assertThrows(BookNotFoundException.class, () -> bookService.deleteBook(1L, 2L));
+    }
+
     @Test
     void testDeleteBook_Success() {
         when(bookRepository.existsById(1L)).thenReturn(true);
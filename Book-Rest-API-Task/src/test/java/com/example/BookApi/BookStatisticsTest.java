@@ -0,0 +1,81 @@
+package com.example.BookApi;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookGroupStats;
+import com.example.BookApi.services.BookStatistics;
+import com.example.BookApi.services.BookStatistics.GroupBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookStatisticsTest {
+
+    private BookStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = new BookStatistics();
+        statistics.index(new Book(1L, "Introduction to Algorithms", "Thomas H. Cormen", 200.0, 1990));
+        statistics.index(new Book(2L, "Algorithms Unlocked", "Thomas H. Cormen", 40.0, 2013));
+        statistics.index(new Book(3L, "Java Concurrency in Practice", "Brian Goetz", 60.0, 2006));
+        statistics.index(new Book(4L, "Effective Java", "Joshua Bloch", 45.0, 2006));
+    }
+
+    private static List<Object> groups(List<BookGroupStats> stats) {
+        return stats.stream().map(BookGroupStats::getGroup).toList();
+    }
+
+    @Test
+    void testGroupsByAuthorAndYear() {
+        List<BookGroupStats> byAuthor = statistics.get(GroupBy.AUTHOR);
+        assertEquals(List.of("Brian Goetz", "Joshua Bloch", "Thomas H. Cormen"), groups(byAuthor));
+        BookGroupStats cormen = byAuthor.get(2);
+        assertEquals(2, cormen.getCount());
+        assertEquals(120.0, cormen.getAveragePrice());
+        assertEquals(40.0, cormen.getMinPrice());
+        assertEquals(200.0, cormen.getMaxPrice());
+
+        List<BookGroupStats> byYear = statistics.get(GroupBy.YEAR);
+        assertEquals(List.of(1990, 2006, 2013), groups(byYear));
+        assertEquals(2, byYear.get(1).getCount());
+        assertEquals(52.5, byYear.get(1).getAveragePrice());
+    }
+
+    @Test
+    void testRemovingTheCheapestBook_RestoresMinimum() {
+        statistics.index(new Book(5L, "Algorithms Illuminated", "Thomas H. Cormen", 40.0, 2017));
+        statistics.remove(2L);
+        assertEquals(40.0, statistics.get(GroupBy.AUTHOR).get(2).getMinPrice());
+
+        statistics.remove(5L);
+        BookGroupStats cormen = statistics.get(GroupBy.AUTHOR).get(2);
+        assertEquals(1, cormen.getCount());
+        assertEquals(200.0, cormen.getMinPrice());
+        assertEquals(200.0, cormen.getAveragePrice());
+    }
+
+    @Test
+    void testReindexing_MovesBookBetweenGroups() {
+        statistics.index(new Book(3L, "Java Concurrency in Practice", "Joshua Bloch", 70.0, 2006));
+        assertEquals(List.of("Joshua Bloch", "Thomas H. Cormen"), groups(statistics.get(GroupBy.AUTHOR)));
+        assertEquals(2, statistics.get(GroupBy.AUTHOR).get(0).getCount());
+        assertEquals(70.0, statistics.get(GroupBy.YEAR).get(1).getMaxPrice());
+
+        // Unknown IDs and repeated removals leave the counts alone
+        statistics.remove(3L);
+        statistics.remove(3L);
+        statistics.remove(42L);
+        assertEquals(1, statistics.get(GroupBy.YEAR).get(1).getCount());
+    }
+
+    @Test
+    void testParseGroupBy() {
+        assertEquals(GroupBy.AUTHOR, GroupBy.parse("author"));
+        assertEquals(GroupBy.YEAR, GroupBy.parse("YEAR"));
+        assertThrows(IllegalArgumentException.class, () -> GroupBy.parse("price"));
+        assertThrows(IllegalArgumentException.class, () -> GroupBy.parse(null));
+    }
+}
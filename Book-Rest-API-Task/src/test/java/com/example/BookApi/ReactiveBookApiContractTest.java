@@ -0,0 +1,23 @@
+package com.example.BookApi;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+public class ReactiveBookApiContractTest extends BookApiContract {
+
+    @Autowired
+    private ReactiveWebServerApplicationContext context;
+
+    @Test
+    void testServedByNetty() {
+        assertInstanceOf(NettyWebServer.class, context.getWebServer());
+    }
+}
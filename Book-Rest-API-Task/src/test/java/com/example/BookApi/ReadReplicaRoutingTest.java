@@ -0,0 +1,214 @@
+package com.example.BookApi;
+
+import com.example.BookApi.config.ConnectionLimitingDataSource;
+import com.example.BookApi.config.ReadWriteRoutingDataSource;
+import com.example.BookApi.config.StatementCountingDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.internal.DisabledCaching;
+import org.hibernate.cfg.AvailableSettings;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=MySQL",
+        "books.second-level-cache.enabled=false",
+        "spring.threads.virtual.enabled=true",
+        "books.datasource.replica-urls=" + ReadReplicaRoutingTest.REPLICA_A + "," + ReadReplicaRoutingTest.REPLICA_B})
+public class ReadReplicaRoutingTest {
+
+    static final String REPLICA_A = "jdbc:h2:mem:routing-replica-a;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_B = "jdbc:h2:mem:routing-replica-b;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    // Stand-in replicas, created before the context starts since nothing replicates into them
+    static {
+        for (String replica : List.of(REPLICA_A, REPLICA_B)) {
+            new JdbcTemplate(h2(replica)).execute("create table book (id bigint primary key, title varchar(255), "
+                    + "author varchar(255), book_price double, year_published int, version bigint)");
+        }
+    }
+
+    @Autowired
+    WebTestClient client;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    void testSecondLevelCache_SwitchedOff() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        assertInstanceOf(DisabledCaching.class, sessionFactory.getCache());
+        Map<String, Object> properties = entityManagerFactory.getProperties();
+        assertEquals("false", String.valueOf(properties.get(AvailableSettings.USE_SECOND_LEVEL_CACHE)));
+        assertEquals("false", String.valueOf(properties.get(AvailableSettings.USE_QUERY_CACHE)));
+    }
+
+    @Test
+    void testConnectionLimiter_OnEveryDatabase() throws SQLException {
+        Map<String, DataSource> targets = dataSource.unwrap(ReadWriteRoutingDataSource.class).getTargets();
+        assertEquals(List.of("primary", "replica-0", "replica-1"), List.copyOf(targets.keySet()));
+        // Statements are counted on every database too, underneath the limiter
+        targets.values().forEach(target -> assertInstanceOf(StatementCountingDataSource.class,
+                assertInstanceOf(ConnectionLimitingDataSource.class, target).getTargetDataSource()));
+    }
+
+    @Test
+    void testLimitedPrimary_DoesNotHoldUpReplicaReads() throws SQLException {
+        DataSource primary = mock(DataSource.class);
+        DataSource replica = mock(DataSource.class);
+        when(primary.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        when(replica.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ReadWriteRoutingDataSource router = new ReadWriteRoutingDataSource(primary, List.of(replica), Duration.ofMinutes(1))
+                .mapTargets((target, dataSource) -> new ConnectionLimitingDataSource(dataSource, target, 1, Duration.ofMillis(50)));
+
+        router.getConnection();
+        assertThrows(SQLTransientConnectionException.class, router::getConnection);
+        readOnly(() -> {
+            router.getConnection();
+            verify(replica).getConnection();
+        });
+    }
+
+    @Test
+    void testReadsFromReplicas_UntilClientWrites() {
+        // Each replica holds its own copy of book 1 so it's visible which database answered
+        new JdbcTemplate(h2(REPLICA_A)).update("merge into book values (1, 'On replica', 'A', 10.0, 2000, 0)");
+        new JdbcTemplate(h2(REPLICA_B)).update("merge into book values (1, 'On replica', 'B', 10.0, 2000, 0)");
+        assertNotEquals(firstAuthor(null), firstAuthor(null));
+
+        String cookie = client.post().uri("/books")
+                .bodyValue(Map.of("title", "Fresh", "author", "Writer", "bookPrice", 12.0, "yearPublished", 2024))
+                .exchange().expectStatus().isCreated()
+                .returnResult(Void.class).getResponseHeaders().getFirst(HttpHeaders.SET_COOKIE);
+        assertEquals("Writer", firstAuthor(cookie.split(";")[0]));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from book", Integer.class));
+        assertNotEquals("Writer", firstAuthor(null));
+    }
+
+    private String firstAuthor(String cookie) {
+        WebTestClient.RequestHeadersSpec<?> request = client.get().uri("/books?limit=1");
+        if (cookie != null)
+            request = request.header(HttpHeaders.COOKIE, cookie);
+        Map<?, ?> page = request.exchange().expectStatus().isOk().expectBody(Map.class).returnResult().getResponseBody();
+        return (String) ((Map<?, ?>) ((List<?>) page.get("books")).get(0)).get("author");
+    }
+
+    @Test
+    void testRoundRobin_AndWritesOnPrimary() throws SQLException {
+        DataSource primary = mock(DataSource.class);
+        DataSource replicaA = mock(DataSource.class);
+        DataSource replicaB = mock(DataSource.class);
+        Connection onA = mock(Connection.class);
+        Connection onB = mock(Connection.class);
+        when(replicaA.getConnection()).thenReturn(onA);
+        when(replicaB.getConnection()).thenReturn(onB);
+        ReadWriteRoutingDataSource router = new ReadWriteRoutingDataSource(primary, List.of(replicaA, replicaB), Duration.ofMinutes(1));
+
+        router.getConnection();
+        verify(primary).getConnection();
+        readOnly(() -> {
+            assertNotSame(router.getConnection(), router.getConnection());
+            verify(replicaA).getConnection();
+            verify(replicaB).getConnection();
+        });
+    }
+
+    @Test
+    void testExplicitCredentials_RoutedLikeConfiguredOnes() throws SQLException {
+        DataSource primary = mock(DataSource.class);
+        DataSource replica = mock(DataSource.class);
+        ReadWriteRoutingDataSource router = new ReadWriteRoutingDataSource(primary, List.of(replica), Duration.ofMinutes(1));
+
+        router.getConnection("reporting", "secret");
+        verify(primary).getConnection("reporting", "secret");
+        readOnly(() -> {
+            router.getConnection("reporting", "secret");
+            verify(replica).getConnection("reporting", "secret");
+        });
+    }
+
+    @Test
+    void testFailingReplica_IsSkipped_ThenPrimaryServesReads() throws SQLException {
+        DataSource primary = mock(DataSource.class);
+        DataSource healthy = mock(DataSource.class);
+        DataSource broken = mock(DataSource.class);
+        when(broken.getConnection()).thenThrow(new SQLException("Connection refused"));
+        ReadWriteRoutingDataSource router = new ReadWriteRoutingDataSource(primary, List.of(broken, healthy), Duration.ofMinutes(1));
+
+        readOnly(() -> {
+            for (int i = 0; i < 4; i++) {
+                router.getConnection();
+            }
+            verify(broken, times(1)).getConnection();
+            verify(healthy, times(4)).getConnection();
+            assertEquals(1, router.getHealthyReplicas());
+
+            when(healthy.getConnection()).thenThrow(new SQLException("Connection refused"));
+            router.getConnection();
+            verify(primary).getConnection();
+            assertEquals(0, router.getHealthyReplicas());
+        });
+    }
+
+    @Test
+    void testDownReplica_IsRetriedAfterBackoff() throws Exception {
+        DataSource primary = mock(DataSource.class);
+        DataSource replica = mock(DataSource.class);
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused")).thenReturn(mock(Connection.class));
+        ReadWriteRoutingDataSource router = new ReadWriteRoutingDataSource(primary, List.of(replica), Duration.ofMillis(20));
+
+        readOnly(() -> {
+            router.getConnection();
+            verify(primary).getConnection();
+            Thread.sleep(30);
+            router.getConnection();
+            verify(replica, times(2)).getConnection();
+            assertEquals(1, router.getHealthyReplicas());
+        });
+    }
+
+    private interface Body {
+        void run() throws Exception;
+    }
+
+    private static void readOnly(Body body) {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            body.run();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    private static DataSource h2(String url) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url);
+        dataSource.setUser("sa");
+        return dataSource;
+    }
+}
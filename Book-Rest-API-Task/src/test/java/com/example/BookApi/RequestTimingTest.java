@@ -0,0 +1,77 @@
+package com.example.BookApi;
+
+import com.example.BookApi.config.RequestTiming;
+import com.example.BookApi.config.RequestTiming.Stage;
+import com.example.BookApi.config.SlowRequestLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestTimingTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestTiming.clear();
+    }
+
+    @Test
+    void testNestedStages_CountedOnce_AndAddUpToTotal() throws InterruptedException {
+        RequestTiming timing = RequestTiming.start();
+        assertSame(timing, RequestTiming.current());
+        timing.switchTo(Stage.DISPATCH);
+        timing.enter(Stage.CONTROLLER);
+        timing.enter(Stage.SERVICE);
+        Thread.sleep(20);
+        timing.enter(Stage.REPOSITORY);
+        Thread.sleep(30);
+        timing.exit();
+        // Ignored while a call is in progress
+        timing.switchTo(Stage.SERIALIZATION);
+        timing.exit();
+        timing.exit();
+        timing.switchTo(Stage.SERIALIZATION);
+        timing.stop();
+
+        assertTrue(timing.getNanos(Stage.REPOSITORY) >= TimeUnit.MILLISECONDS.toNanos(30));
+        assertTrue(timing.getNanos(Stage.SERVICE) >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(timing.getNanos(Stage.SERVICE) < TimeUnit.MILLISECONDS.toNanos(30) + timing.getNanos(Stage.REPOSITORY) / 2);
+        assertTrue(timing.getNanos(Stage.CONTROLLER) < TimeUnit.MILLISECONDS.toNanos(20));
+        long sum = 0;
+        for (Stage stage : Stage.values()) {
+            sum += timing.getNanos(stage);
+        }
+        assertEquals(timing.getTotalNanos(), sum);
+        assertEquals(List.of("filters", "dispatch", "controller", "service", "repository", "serialization"),
+                List.copyOf(timing.getStageMillis().keySet()));
+    }
+
+    @Test
+    void testServerTimingHeader() {
+        RequestTiming timing = RequestTiming.start();
+        timing.enter(Stage.VALIDATION);
+        timing.exit();
+        timing.stop();
+        String header = timing.serverTiming();
+        assertTrue(header.matches("filters;dur=\\d+\\.\\d{3}, (validation;dur=\\d+\\.\\d{3}, )?total;dur=\\d+\\.\\d{3}"), header);
+    }
+
+    @Test
+    void testSlowRequestLog_KeepsLatestNewestFirst() {
+        SlowRequestLog log = new SlowRequestLog(2);
+        assertTrue(log.entries().isEmpty());
+        RequestTiming timing = RequestTiming.start();
+        timing.stop();
+        log.record("GET", "/books/1", 200, timing, List.of());
+        log.record("GET", "/books/2", 200, timing, List.of());
+        log.record("DELETE", "/books/3", 404, timing, List.of());
+
+        List<SlowRequestLog.Entry> entries = log.entries();
+        assertEquals(List.of("/books/3", "/books/2"), entries.stream().map(SlowRequestLog.Entry::uri).toList());
+        assertEquals(404, entries.get(0).status());
+        assertEquals(timing.getTotalNanos() / 1_000_000.0, entries.get(0).totalMillis());
+    }
+}
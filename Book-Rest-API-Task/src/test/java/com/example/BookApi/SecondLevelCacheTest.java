@@ -0,0 +1,99 @@
+package com.example.BookApi;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookFilter;
+import com.example.BookApi.exceptionHandler.BookNotFoundException;
+import com.example.BookApi.repositories.BookRepository;
+import com.example.BookApi.services.BookService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class SecondLevelCacheTest {
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testRepeatedLookupsAndPages_ServedFromCache() {
+        Book book = bookService.addBook(new Book(null, "Cached Book", "Cached Author", 17.0, 2017));
+        BookFilter filter = new BookFilter(17.0, 17.0, 2017, 2017, null);
+        bookService.getBooksPage(filter, null, 10);
+        bookService.getBooksPage(new BookFilter(), String.valueOf(book.getId() - 1), 1);
+        statistics.clear();
+
+        // Each call runs in its own persistence context, so only the second-level cache can answer them
+        assertEquals("Cached Book", bookRepository.findById(book.getId()).orElseThrow().getTitle());
+        assertEquals("Cached Book", bookRepository.findById(book.getId()).orElseThrow().getTitle());
+        assertEquals(List.of(book.getId()), ids(bookService.getBooksPage(filter, null, 10).getBooks()));
+        assertEquals(List.of(book.getId()), ids(bookService.getBooksPage(new BookFilter(), String.valueOf(book.getId() - 1), 1).getBooks()));
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getQueryCacheHitCount());
+        assertEquals(2, statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getHitCount());
+    }
+
+    @Test
+    void testWrites_NeverServeStaleData() {
+        Book book = bookService.addBook(new Book(null, "Original Title", "Stale Author", 18.0, 2018));
+        BookFilter filter = new BookFilter(18.0, 18.0, 2018, 2018, null);
+        warm(book.getId(), filter);
+
+        bookService.updateBook(book.getId(), new Book(null, "Updated Title", "Stale Author", 18.0, 2018));
+        assertTitle(book.getId(), filter, "Updated Title");
+        warm(book.getId(), filter);
+
+        Book patched = bookService.patchBook(book.getId(), Map.of("title", "Patched Title"), null);
+        assertTitle(book.getId(), filter, "Patched Title");
+        warm(book.getId(), filter);
+
+        // Deleting with a version goes through a bulk JPQL delete instead of the entity
+        bookService.deleteBook(book.getId(), patched.getVersion());
+        assertTrue(bookRepository.findById(book.getId()).isEmpty());
+        assertThrows(BookNotFoundException.class, () -> bookService.getBookById(book.getId()));
+        assertTrue(bookService.getBooksPage(filter, null, 10).getBooks().isEmpty());
+        assertTrue(bookService.getBooksPage(new BookFilter(), String.valueOf(book.getId() - 1), 1).getBooks().stream()
+                .noneMatch(page -> page.getId().equals(book.getId())));
+    }
+
+    private void warm(Long id, BookFilter filter) {
+        bookRepository.findById(id);
+        bookService.getBookById(id);
+        bookService.getBooksPage(filter, null, 10);
+        bookService.getBooksPage(new BookFilter(), String.valueOf(id - 1), 1);
+    }
+
+    private void assertTitle(Long id, BookFilter filter, String title) {
+        assertEquals(title, bookRepository.findById(id).orElseThrow().getTitle());
+        assertEquals(title, bookService.getBookById(id).orElseThrow().getTitle());
+        assertEquals(title, bookService.getBooksPage(filter, null, 10).getBooks().get(0).getTitle());
+        assertEquals(title, bookService.getBooksPage(new BookFilter(), String.valueOf(id - 1), 1).getBooks().get(0).getTitle());
+    }
+
+    private static List<Long> ids(List<Book> books) {
+        return books.stream().map(Book::getId).toList();
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.BookApi;
+
+import com.example.BookApi.classes.Book;
+import com.example.BookApi.classes.BookPage;
+import com.example.BookApi.services.BookChangeFeed;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Every request counts as slow so the slow request log can be checked
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "books.timing.slow-threshold=0ms")
+public class ServletBookApiContractTest extends BookApiContract {
+
+    @Autowired
+    private BookChangeFeed bookChangeFeed;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // The change feed is only served by the servlet stack
+    @Test
+    void testChangeFeed_ReplaysAndResumes() {
+        Book created = webTestClient.post().uri("/books").bodyValue(new Book(null, "Feed Book", "Feed Author", 10.0, 2001))
+                .exchange().expectStatus().isCreated().expectBody(Book.class).returnResult().getResponseBody();
+        webTestClient.delete().uri("/books/{id}", created.getId()).exchange().expectStatus().isOk();
+
+        Map<?, ?> createdEvent = webTestClient.get().uri("/books/changes?after=" + bookChangeFeed.getEpoch() + "-0").accept(MediaType.APPLICATION_NDJSON)
+                .exchange().expectStatus().isOk()
+                .returnResult(Map.class).getResponseBody()
+                .filter(event -> created.getId().equals(((Number) event.get("id")).longValue()))
+                .blockFirst(Duration.ofSeconds(10));
+        assertEquals("CREATED", createdEvent.get("type"));
+        assertEquals("Feed Book", ((Map<?, ?>) createdEvent.get("book")).get("title"));
+
+        // Resuming right after the creation picks up the deletion next
+        ServerSentEvent<Map<String, Object>> deleted = webTestClient.get().uri("/books/changes")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Last-Event-ID", (String) createdEvent.get("eventId"))
+                .exchange().expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<Map<String, Object>>>() {
+                }).getResponseBody()
+                .filter(event -> created.getId().equals(((Number) event.data().get("id")).longValue()))
+                .blockFirst(Duration.ofSeconds(10));
+        assertEquals("deleted", deleted.event());
+        assertEquals(bookChangeFeed.getEpoch() + "-" + (((Number) createdEvent.get("sequence")).longValue() + 1), deleted.id());
+        assertNull(deleted.data().get("book"));
+    }
+
+    // Another instance writing to the same database bumps the shared catalog version
+    @Test
+    void testCatalogETag_FollowsWritesFromOtherInstances() {
+        String eTag = webTestClient.get().uri("/books?limit=5").exchange().expectStatus().isOk()
+                .returnResult(BookPage.class).getResponseHeaders().getETag();
+        webTestClient.get().uri("/books?limit=5").header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange().expectStatus().isNotModified();
+
+        jdbcTemplate.update("update book_catalog set version = version + 1 where id = 1");
+
+        webTestClient.get().uri("/books?limit=5").header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange().expectStatus().isOk();
+    }
+
+    @Test
+    void testBooksInsertedElsewhere_AreFound() {
+        jdbcTemplate.update("insert into book (id, title, author, book_price, year_published, version)"
+                + " values (7000000, 'Inserted Elsewhere', 'SQL Author', 12.0, 2012, 0)");
+
+        webTestClient.get().uri("/books/7000000").exchange().expectStatus().isOk()
+                .expectBody().jsonPath("$.title").isEqualTo("Inserted Elsewhere");
+    }
+
+    @Test
+    void testIdLookup_RejectsPaging() {
+        Book created = webTestClient.post().uri("/books").bodyValue(new Book(null, "Looked Up", "Lookup Author", 14.0, 2004))
+                .exchange().expectStatus().isCreated().expectBody(Book.class).returnResult().getResponseBody();
+
+        webTestClient.get().uri("/books?ids={id}", created.getId()).exchange().expectStatus().isOk()
+                .expectBody().jsonPath("$.books[0].title").isEqualTo("Looked Up");
+        webTestClient.get().uri("/books?ids={id}&limit=10", created.getId()).exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/books?ids={id}&after=14.0_1", created.getId()).exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/books?ids={id}&limit=10&fields=title", created.getId()).exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testFieldsProjection() {
+        Book created = webTestClient.post().uri("/books").bodyValue(new Book(null, "Projected Book", "Projected Author", 11.0, 2002))
+                .exchange().expectStatus().isCreated().expectBody(Book.class).returnResult().getResponseBody();
+
+        webTestClient.get().uri("/books/{id}?fields=title", created.getId())
+                .exchange().expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"v0\"")
+                .expectBody().json("{\"title\":\"Projected Book\"}", true);
+        webTestClient.get().uri("/books?fields=id,author&minPrice=11&maxPrice=11&fromYear=2002&toYear=2002")
+                .exchange().expectStatus().isOk()
+                .expectBody().json("[{\"id\":" + created.getId() + ",\"author\":\"Projected Author\"}]", true);
+        webTestClient.get().uri("/books?fields=title&limit=1&minPrice=11&maxPrice=11&fromYear=2002&toYear=2002")
+                .exchange().expectStatus().isOk()
+                .expectBody().json("{\"books\":[{\"title\":\"Projected Book\"}]}");
+        webTestClient.get().uri("/books?ids={id},987654321&fields=title", created.getId())
+                .exchange().expectStatus().isOk()
+                .expectBody().json("{\"books\":[{\"title\":\"Projected Book\"}],\"missingIds\":[987654321]}", true);
+        webTestClient.get().uri("/books?fields=title,version").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testBinaryEncodings() throws Exception {
+        List<Book> batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.add(new Book(null, "Encoded Book", "Encoded Author", 13.0, 2003));
+        }
+        webTestClient.post().uri("/books/batch").bodyValue(batch).exchange().expectStatus().isCreated();
+        String query = "/books?minPrice=13&maxPrice=13&fromYear=2003&toYear=2003";
+
+        byte[] cbor = webTestClient.get().uri(query).accept(MediaType.APPLICATION_CBOR)
+                .exchange().expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+        Book[] books = new ObjectMapper(new CBORFactory()).readValue(cbor, Book[].class);
+        assertEquals(50, books.length);
+        Book created = books[0];
+
+        byte[] smile = webTestClient.get().uri("/books/{id}", created.getId()).accept(MediaType.valueOf("application/x-jackson-smile"))
+                .exchange().expectStatus().isOk()
+                .expectBody(byte[].class).returnResult().getResponseBody();
+        assertEquals("Encoded Book", new ObjectMapper(new SmileFactory()).readValue(smile, Book.class).getTitle());
+
+        webTestClient.get().uri("/books").accept(MediaType.APPLICATION_XML).exchange().expectStatus().isEqualTo(406);
+    }
+
+    @Test
+    void testStatistics_FollowWrites() {
+        Book first = webTestClient.post().uri("/books").bodyValue(new Book(null, "Stats One", "Stats Author", 10.0, 1871))
+                .exchange().expectStatus().isCreated().expectBody(Book.class).returnResult().getResponseBody();
+        webTestClient.post().uri("/books").bodyValue(new Book(null, "Stats Two", "Stats Author", 30.0, 1871))
+                .exchange().expectStatus().isCreated();
+        webTestClient.get().uri("/books/stats?groupBy=year").exchange().expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[?(@.group == 1871)].count").isEqualTo(2)
+                .jsonPath("$[?(@.group == 1871)].averagePrice").isEqualTo(20.0)
+                .jsonPath("$[?(@.group == 1871)].minPrice").isEqualTo(10.0);
+
+        webTestClient.delete().uri("/books/{id}", first.getId()).exchange().expectStatus().isOk();
+        webTestClient.get().uri("/books/stats?groupBy=author").exchange().expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[?(@.group == 'Stats Author')].count").isEqualTo(1)
+                .jsonPath("$[?(@.group == 'Stats Author')].minPrice").isEqualTo(30.0);
+
+        webTestClient.get().uri("/books/stats?groupBy=price").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testAsyncIngest_AcceptedThenCreated() throws InterruptedException {
+        var accepted = webTestClient.post().uri("/books").header("Prefer", "respond-async")
+                .bodyValue(new Book(null, "Queued Book", "Queued Author", 11.0, 2011))
+                .exchange().expectStatus().isAccepted()
+                .expectHeader().valueEquals("Preference-Applied", "respond-async")
+                .expectBody(Map.class).returnResult();
+        assertEquals("QUEUED", accepted.getResponseBody().get("status"));
+        String location = accepted.getResponseHeaders().getLocation().toString();
+
+        Map<?, ?> status = Map.of();
+        for (int attempt = 0; attempt < 100 && !"CREATED".equals(status.get("status")); attempt++) {
+            Thread.sleep(50);
+            status = webTestClient.get().uri(location).exchange().expectStatus().isOk()
+                    .expectBody(Map.class).returnResult().getResponseBody();
+        }
+        assertEquals("CREATED", status.get("status"));
+        webTestClient.get().uri("/books/{id}", status.get("id")).exchange().expectStatus().isOk()
+                .expectBody().jsonPath("$.title").isEqualTo("Queued Book");
+
+        webTestClient.post().uri("/books").header("Prefer", "respond-async")
+                .bodyValue(new Book(null, "", "Queued Author", 11.0, 2011))
+                .exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/books/ingest/unknown").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void testServerTiming_AndSlowRequestLog() {
+        String serverTiming = webTestClient.post().uri("/books").bodyValue(new Book(null, "Timed Book", "Timed Author", 12.0, 2012))
+                .exchange().expectStatus().isCreated()
+                .returnResult(Book.class).getResponseHeaders().getFirst("Server-Timing");
+        assertNotNull(serverTiming);
+        for (String stage : List.of("filters", "dispatch", "validation", "controller", "service", "repository", "total")) {
+            assertTrue(serverTiming.matches(".*\\b" + stage + ";dur=\\d+\\.\\d{3}\\b.*"), serverTiming);
+        }
+        // The insert and the catalog version, and the sequence when its block of IDs ran out
+        assertTrue(serverTiming.matches(".*\\bdb;dur=\\d+\\.\\d{3};desc=\"[23] statements\".*"), serverTiming);
+
+        List<Map<String, Object>> slow = webTestClient.get().uri("/actuator/slowrequests").exchange().expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<List<Map<String, Object>>>() {
+                }).returnResult().getResponseBody();
+        Map<String, Object> post = slow.stream().filter(entry -> "POST".equals(entry.get("method"))).findFirst().orElseThrow();
+        assertEquals("/books", post.get("uri"));
+        assertEquals(201, post.get("status"));
+        Map<?, ?> stageMillis = (Map<?, ?>) post.get("stageMillis");
+        assertTrue(stageMillis.containsKey("repository"));
+        assertTrue(stageMillis.containsKey("serialization"));
+        // The log itself is served outside /books and isn't timed
+        assertTrue(slow.stream().noneMatch(entry -> entry.get("uri").toString().startsWith("/actuator")));
+
+        List<Map<String, Object>> queries = webTestClient.get().uri("/actuator/queries").exchange().expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<List<Map<String, Object>>>() {
+                }).returnResult().getResponseBody();
+        Map<String, Object> insert = queries.stream().filter(query -> query.get("sql").toString().startsWith("insert into book "))
+                .findFirst().orElseThrow();
+        assertTrue(((Number) insert.get("count")).longValue() >= 1);
+        assertTrue(((Number) insert.get("maxMillis")).doubleValue() > 0);
+    }
+
+    @Test
+    void testChangeFeed_UnknownSequence_Gone() {
+        webTestClient.get().uri("/books/changes?after=" + bookChangeFeed.getEpoch() + "-999999999").accept(MediaType.APPLICATION_NDJSON)
+                .exchange().expectStatus().isEqualTo(410);
+    }
+
+    // Sequences restart with the process, an ID handed out before a restart can't be resumed from
+    @Test
+    void testChangeFeed_EarlierEpoch_Gone() {
+        webTestClient.get().uri("/books/changes").accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Last-Event-ID", "0-1")
+                .exchange().expectStatus().isEqualTo(410);
+    }
+}
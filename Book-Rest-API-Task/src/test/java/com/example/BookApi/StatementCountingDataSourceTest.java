@@ -0,0 +1,161 @@
+package com.example.BookApi;
+
+import com.example.BookApi.config.RequestTiming;
+import com.example.BookApi.config.RequestTimingFilter;
+import com.example.BookApi.config.SlowRequestLog;
+import com.example.BookApi.config.StatementCountingDataSource;
+import com.example.BookApi.config.StatementStatistics;
+import com.example.BookApi.exceptionHandler.StatementBudgetExceededException;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementCountingDataSourceTest {
+
+    private StatementStatistics statistics;
+    private DataSource h2;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        statistics = new StatementStatistics(100);
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:statements;DB_CLOSE_DELAY=-1");
+        h2 = dataSource;
+        try (Connection connection = h2.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists item (id bigint primary key)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestTiming.clear();
+    }
+
+    private static void select(DataSource dataSource, int ids) {
+        String in = String.join(",", Collections.nCopies(ids, "?"));
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select id\n  from item where id in (" + in + ")")) {
+            for (int i = 1; i <= ids; i++) {
+                statement.setLong(i, i);
+            }
+            statement.executeQuery().close();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void testStatementsCountedPerShape() throws SQLException {
+        DataSource dataSource = new StatementCountingDataSource(h2, statistics, false);
+        RequestTiming timing = RequestTiming.start();
+        select(dataSource, 2);
+        select(dataSource, 3);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("select count(*) from item");
+        }
+
+        assertEquals(3, timing.getStatements());
+        assertTrue(timing.getStatementNanos() > 0);
+        List<StatementStatistics.QueryShape> queries = statistics.queries();
+        assertEquals(2, queries.size());
+        StatementStatistics.QueryShape in = queries.stream().filter(query -> query.sql().contains(" in ")).findFirst().orElseThrow();
+        // Whitespace and the length of the IN list don't make a new shape
+        assertEquals("select id from item where id in (?, ...)", in.sql());
+        assertEquals(2, in.count());
+        assertTrue(in.maxMillis() >= in.meanMillis());
+
+        statistics.reset();
+        assertTrue(statistics.queries().isEmpty());
+    }
+
+    // Threads meeting new shapes at the same time can't take more than maxShapes between them
+    @Test
+    void testShapeCap_HoldsUnderConcurrency() throws InterruptedException {
+        StatementStatistics capped = new StatementStatistics(10);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int thread = 0; thread < 8; thread++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1_000; i++) {
+                    capped.record("select " + i, 1);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<StatementStatistics.QueryShape> queries = capped.queries();
+        assertEquals(11, queries.size());
+        assertTrue(queries.stream().anyMatch(query -> query.sql().equals("(other statements)")));
+        assertEquals(8_000, queries.stream().mapToLong(StatementStatistics.QueryShape::count).sum());
+
+        capped.reset();
+        capped.record("select after reset", 1);
+        assertEquals(List.of("select after reset"), capped.queries().stream().map(StatementStatistics.QueryShape::sql).toList());
+    }
+
+    @Test
+    void testOverBudget_FailsOnlyInTestMode() {
+        RequestTiming.start().setStatementBudget(1);
+        select(new StatementCountingDataSource(h2, statistics, false), 1);
+        select(new StatementCountingDataSource(h2, statistics, false), 1);
+        assertEquals(2, RequestTiming.current().getStatements());
+
+        RequestTiming.start().setStatementBudget(1);
+        DataSource strict = new StatementCountingDataSource(h2, statistics, true);
+        select(strict, 1);
+        StatementBudgetExceededException exception = assertThrows(StatementBudgetExceededException.class, () -> select(strict, 2));
+        assertEquals("Statement budget of 1 exceeded by select id from item where id in (?, ...)", exception.getMessage());
+    }
+
+    @Test
+    void testRepeatedStatements_FlaggedInSlowRequestLog() throws Exception {
+        SlowRequestLog log = new SlowRequestLog(10);
+        DataSource dataSource = new StatementCountingDataSource(h2, statistics, false);
+        RequestTimingFilter filter = new RequestTimingFilter(log, Duration.ofHours(1), 5, Duration.ofHours(1));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books/lookup");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // One query per row, as a lazy association would do
+        filter.doFilter(request, response, (req, res) -> {
+            RequestTiming.current().setStatementBudget(3);
+            for (int i = 0; i < 6; i++) {
+                select(dataSource, 1);
+            }
+        });
+
+        assertTrue(response.getHeader("Server-Timing").contains(";desc=\"6 statements\""));
+        SlowRequestLog.Entry entry = log.entries().get(0);
+        assertEquals(6, entry.statements());
+        assertEquals(List.of("6 statements over a budget of 3", "repeated 6x select id from item where id in (?)"), entry.flags());
+
+        // Fast requests within budget are left out
+        filter.doFilter(new MockHttpServletRequest("GET", "/books/1"), new MockHttpServletResponse(),
+                (req, res) -> select(dataSource, 1));
+        assertEquals(1, log.entries().size());
+    }
+}
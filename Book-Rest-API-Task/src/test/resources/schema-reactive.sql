@@ -0,0 +1,13 @@
+-- What Hibernate creates for Book on MySQL, where book_seq is a table rather than a sequence
+create table if not exists book (
+    id bigint not null primary key,
+    author varchar(255),
+    book_price float(53),
+    title varchar(255),
+    version bigint default 0,
+    year_published integer
+);
+create table if not exists book_seq (next_val bigint);
+insert into book_seq select 1 where not exists (select * from book_seq);
+create table if not exists book_catalog (id integer not null primary key, version bigint);
+insert into book_catalog select 1, 0 where not exists (select * from book_catalog);
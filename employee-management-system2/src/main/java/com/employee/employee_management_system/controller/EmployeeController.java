@@ -2,6 +2,7 @@ package com.employee.employee_management_system.controller;
 
 import com.employee.employee_management_system.model.Employee;
 import com.employee.employee_management_system.service.EmployeeService;
+import com.employee.employee_management_system.timing.StatementBudget;
 
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
@@ -23,31 +24,36 @@ public class EmployeeController {
 
 	// GET: Fetch all employees
 	@GetMapping
+	@StatementBudget(1)
 	public ResponseEntity<List<Employee>> getAllEmployees() {
 		return new ResponseEntity<>(employeeService.getAllEmployees(), HttpStatus.OK);
 	}
 
 	// GET: Fetch employee by ID
 	@GetMapping("/{id}")
+	@StatementBudget(1)
 	public ResponseEntity<Employee> getEmployeeById(@PathVariable Long id) {
 		return new ResponseEntity<>(employeeService.getEmployeeById(id), HttpStatus.OK);
 	}
 
 	// POST: Create a new employee
 	@PostMapping
+	@StatementBudget(1)
 	public ResponseEntity<Employee> addEmployee(@Valid @RequestBody Employee employee) {
 		return new ResponseEntity<>(employeeService.addEmployee(employee), HttpStatus.CREATED);
 	}
 
-	// PUT: Update an existing employee
+	// PUT: Update an existing employee, select then update
 	@PutMapping("/{id}")
+	@StatementBudget(2)
 	public ResponseEntity<Employee> updateEmployee(@PathVariable Long id,
 			@Valid @RequestBody Employee updatedEmployee) {
 		return new ResponseEntity<>(employeeService.updateEmployee(id, updatedEmployee), HttpStatus.OK);
 	}
 
-	// DELETE: Remove an employee by ID
+	// DELETE: Remove an employee by ID, select then delete
 	@DeleteMapping("/{id}")
+	@StatementBudget(2)
 	public ResponseEntity<Void> deleteEmployee(@PathVariable Long id) {
 		employeeService.deleteEmployee(id);
 		return ResponseEntity.noContent().build();
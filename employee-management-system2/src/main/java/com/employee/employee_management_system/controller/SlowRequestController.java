@@ -0,0 +1,29 @@
+package com.employee.employee_management_system.controller;
+
+import com.employee.employee_management_system.timing.SlowRequestLog;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/timings")
+@ConditionalOnProperty(name = "employees.timing.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowRequestController {
+
+	private final SlowRequestLog slowRequestLog;
+
+	// Constructor Injection for dependency injection
+	public SlowRequestController(SlowRequestLog slowRequestLog) {
+		this.slowRequestLog = slowRequestLog;
+	}
+
+	// GET: The latest slow /api/employees requests with their Server-Timing stages, newest first
+	@GetMapping("/slow")
+	public ResponseEntity<List<SlowRequestLog.Entry>> getSlowRequests() {
+		return new ResponseEntity<>(slowRequestLog.getEntries(), HttpStatus.OK);
+	}
+}
@@ -0,0 +1,36 @@
+package com.employee.employee_management_system.controller;
+
+import com.employee.employee_management_system.timing.StatementStatistics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/timings/queries")
+@ConditionalOnProperty(name = "employees.statements.enabled", havingValue = "true", matchIfMissing = true)
+public class StatementStatisticsController {
+
+	private final StatementStatistics statementStatistics;
+
+	// Constructor Injection for dependency injection
+	public StatementStatisticsController(StatementStatistics statementStatistics) {
+		this.statementStatistics = statementStatistics;
+	}
+
+	// GET: Count and time of every SQL statement shape, highest total time first
+	@GetMapping
+	public ResponseEntity<List<StatementStatistics.QueryShape>> getQueries() {
+		return new ResponseEntity<>(statementStatistics.getQueries(), HttpStatus.OK);
+	}
+
+	// DELETE: Start counting again from zero
+	@DeleteMapping
+	public ResponseEntity<Void> resetQueries() {
+		statementStatistics.reset();
+		return ResponseEntity.noContent().build();
+	}
+}
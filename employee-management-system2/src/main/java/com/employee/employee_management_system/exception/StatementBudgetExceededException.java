@@ -0,0 +1,8 @@
+package com.employee.employee_management_system.exception;
+
+public class StatementBudgetExceededException extends RuntimeException {
+    public StatementBudgetExceededException(int budget, String sql) {
+        super("Statement budget of " + budget + " exceeded by " + sql);
+    }
+
+}
@@ -49,6 +49,8 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.PUT, EMPLOYEES_API).hasAnyRole("USER" , "ADMIN")
                         // Allow DELETE for ADMIN role only
                         .requestMatchers(HttpMethod.DELETE, EMPLOYEES_API).hasRole("ADMIN")
+                        // Slow request timings and SQL statement statistics for ADMIN role only
+                        .requestMatchers("/api/timings/**").hasRole("ADMIN")
                 )
                 // Use HTTP Basic Authentication
                 .httpBasic(Customizer.withDefaults())
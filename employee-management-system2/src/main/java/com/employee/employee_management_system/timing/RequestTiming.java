@@ -0,0 +1,139 @@
+package com.employee.employee_management_system.timing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Time spent in each stage of one request, kept on the request thread
+public class RequestTiming {
+
+	public enum Stage {
+		FILTERS("filters"),
+		DISPATCH("dispatch"),
+		VALIDATION("validation"),
+		CONTROLLER("controller"),
+		SERVICE("service"),
+		REPOSITORY("repository"),
+		SERIALIZATION("serialization");
+
+		private final String metric;
+
+		Stage(String metric) {
+			this.metric = metric;
+		}
+	}
+
+	private static final Stage[] STAGES = Stage.values();
+	private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+	private final long start = System.nanoTime();
+	private final long[] nanos = new long[STAGES.length];
+	private Stage stage = Stage.FILTERS;
+	private long stageStart = start;
+	private long end;
+
+	private int statementBudget = Integer.MAX_VALUE;
+	private int statements;
+	private long statementNanos;
+
+	public static RequestTiming start() {
+		RequestTiming timing = new RequestTiming();
+		CURRENT.set(timing);
+		return timing;
+	}
+
+	// Null outside of a timed request
+	public static RequestTiming current() {
+		return CURRENT.get();
+	}
+
+	public static void clear() {
+		CURRENT.remove();
+	}
+
+	// Returns the stage that was running, to hand back to exit
+	public Stage enter(Stage next) {
+		Stage previous = stage;
+		moveTo(next);
+		return previous;
+	}
+
+	public void exit(Stage previous) {
+		moveTo(previous);
+	}
+
+	public void stop() {
+		moveTo(stage);
+		end = stageStart;
+	}
+
+	private void moveTo(Stage next) {
+		long now = System.nanoTime();
+		nanos[stage.ordinal()] += now - stageStart;
+		stage = next;
+		stageStart = now;
+	}
+
+	public void setStatementBudget(int statementBudget) {
+		this.statementBudget = statementBudget;
+	}
+
+	public int getStatementBudget() {
+		return statementBudget;
+	}
+
+	// False once the request runs more statements than its budget
+	public boolean statementStarting() {
+		return ++statements <= statementBudget;
+	}
+
+	public void statementExecuted(long nanos) {
+		statementNanos += nanos;
+	}
+
+	public int getStatements() {
+		return statements;
+	}
+
+	public long getStatementNanos() {
+		return statementNanos;
+	}
+
+	public boolean isOverStatementBudget() {
+		return statements > statementBudget;
+	}
+
+	public long getNanos(Stage stage) {
+		long running = stage == this.stage && end == 0 ? System.nanoTime() - stageStart : 0;
+		return nanos[stage.ordinal()] + running;
+	}
+
+	public long getTotalNanos() {
+		return (end == 0 ? System.nanoTime() : end) - start;
+	}
+
+	// Stages that took any time, in milliseconds
+	public Map<String, Double> getStageMillis() {
+		Map<String, Double> millis = new LinkedHashMap<>();
+		for (Stage each : STAGES) {
+			long stageNanos = getNanos(each);
+			if (stageNanos > 0)
+				millis.put(each.metric, millis(stageNanos));
+		}
+		return millis;
+	}
+
+	// Value of the Server-Timing header
+	public String serverTiming() {
+		StringBuilder header = new StringBuilder(128);
+		getStageMillis().forEach((metric, millis) -> header.append(metric).append(";dur=").append(millis).append(", "));
+		if (statements > 0)
+			header.append("db;dur=").append(millis(statementNanos)).append(";desc=\"").append(statements)
+					.append(statements == 1 ? " statement\", " : " statements\", ");
+		return header.append("total;dur=").append(millis(getTotalNanos())).toString();
+	}
+
+	// Rounded to the microsecond, so it never prints in E notation
+	private static double millis(long nanos) {
+		return nanos / 1000 / 1000.0;
+	}
+}
@@ -0,0 +1,145 @@
+package com.employee.employee_management_system.timing;
+
+import com.employee.employee_management_system.timing.RequestTiming.Stage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "employees.timing.enabled", havingValue = "true", matchIfMissing = true)
+public class RequestTimingConfig {
+
+	@Bean
+	public SlowRequestLog slowRequestLog(@Value("${employees.timing.slow-log-size:100}") int size) {
+		return new SlowRequestLog(size);
+	}
+
+	@Bean
+	public FilterRegistrationBean<RequestTimingFilter> requestTimingFilter(SlowRequestLog slowRequestLog,
+			@Value("${employees.timing.slow-threshold:500ms}") Duration slowThreshold) {
+		FilterRegistrationBean<RequestTimingFilter> registration = new FilterRegistrationBean<>(
+				new RequestTimingFilter(slowRequestLog, slowThreshold));
+		registration.addUrlPatterns("/api/employees", "/api/employees/*");
+		// Before Spring Security, so the security filters are timed too
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registration;
+	}
+
+	@Bean
+	public WebMvcConfigurer requestTimingMvcConfigurer(ObjectProvider<LocalValidatorFactoryBean> validator,
+			@Value("${employees.statements.budget:20}") int statementBudget) {
+		return new WebMvcConfigurer() {
+			@Override
+			public void addInterceptors(InterceptorRegistry registry) {
+				registry.addInterceptor(new HandlerInterceptor() {
+					// The filters are done, and the handler's statement budget is known
+					@Override
+					public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+						RequestTiming timing = RequestTiming.current();
+						if (timing != null) {
+							timing.enter(Stage.DISPATCH);
+							StatementBudget budget = handler instanceof HandlerMethod method
+									? method.getMethodAnnotation(StatementBudget.class) : null;
+							timing.setStatementBudget(budget != null ? budget.value() : statementBudget);
+						}
+						return true;
+					}
+				});
+			}
+
+			@Override
+			public Validator getValidator() {
+				return new TimedValidator(validator.getObject());
+			}
+		};
+	}
+
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	public static Advisor controllerTiming() {
+		return timed(new AnnotationMatchingPointcut(RestController.class, true), Stage.CONTROLLER);
+	}
+
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	public static Advisor serviceTiming() {
+		return timed(new AnnotationMatchingPointcut(Service.class, true), Stage.SERVICE);
+	}
+
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	public static Advisor repositoryTiming() {
+		return timed(new ComposablePointcut(Repository.class::isAssignableFrom), Stage.REPOSITORY);
+	}
+
+	private static Advisor timed(Pointcut pointcut, Stage stage) {
+		MethodInterceptor interceptor = invocation -> {
+			RequestTiming timing = RequestTiming.current();
+			if (timing == null)
+				return invocation.proceed();
+			Stage previous = timing.enter(stage);
+			try {
+				return invocation.proceed();
+			} finally {
+				timing.exit(previous);
+			}
+		};
+		DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, interceptor);
+		// Around @Transactional, so the commit counts as repository time
+		advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return advisor;
+	}
+
+	// Times @Valid
+	private record TimedValidator(SmartValidator validator) implements SmartValidator {
+
+		@Override
+		public boolean supports(Class<?> clazz) {
+			return validator.supports(clazz);
+		}
+
+		@Override
+		public void validate(Object target, Errors errors) {
+			validate(target, errors, new Object[0]);
+		}
+
+		@Override
+		public void validate(Object target, Errors errors, Object... validationHints) {
+			RequestTiming timing = RequestTiming.current();
+			Stage previous = timing != null ? timing.enter(Stage.VALIDATION) : null;
+			try {
+				validator.validate(target, errors, validationHints);
+			} finally {
+				if (timing != null)
+					timing.exit(previous);
+			}
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.employee.employee_management_system.timing;
+
+import com.employee.employee_management_system.timing.RequestTiming.Stage;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.time.Instant;
+
+// Times each request, adds the Server-Timing header and logs the slow ones and those over their statement budget
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+	public static final String SERVER_TIMING = "Server-Timing";
+
+	private final SlowRequestLog slowRequestLog;
+	private final long slowThresholdNanos;
+
+	public RequestTimingFilter(SlowRequestLog slowRequestLog, Duration slowThreshold) {
+		this.slowRequestLog = slowRequestLog;
+		this.slowThresholdNanos = slowThreshold.toNanos();
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		RequestTiming timing = RequestTiming.start();
+		TimingResponse timingResponse = new TimingResponse(response, timing);
+		try {
+			chain.doFilter(request, timingResponse);
+		} finally {
+			RequestTiming.clear();
+			timing.stop();
+			// For responses without a body
+			timingResponse.addServerTiming();
+			if (timing.getTotalNanos() >= slowThresholdNanos || timing.isOverStatementBudget())
+				slowRequestLog.add(new SlowRequestLog.Entry(Instant.now(), request.getMethod(), request.getRequestURI(),
+						timingResponse.getStatus(), timing.getTotalNanos() / 1_000_000.0, timing.getStageMillis(),
+						timing.getStatements(), timing.getStatementNanos() / 1_000_000.0, timing.isOverStatementBudget()));
+		}
+	}
+
+	// The header has to be set before the body commits the response
+	private static class TimingResponse extends HttpServletResponseWrapper {
+
+		private final RequestTiming timing;
+		private boolean added;
+
+		TimingResponse(HttpServletResponse response, RequestTiming timing) {
+			super(response);
+			this.timing = timing;
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			writingBody();
+			return super.getOutputStream();
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			writingBody();
+			return super.getWriter();
+		}
+
+		// Spring Security's 401 and 403
+		@Override
+		public void sendError(int sc) throws IOException {
+			addServerTiming();
+			super.sendError(sc);
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			addServerTiming();
+			super.sendError(sc, msg);
+		}
+
+		private void writingBody() {
+			timing.enter(Stage.SERIALIZATION);
+			addServerTiming();
+		}
+
+		void addServerTiming() {
+			if (!added && !isCommitted())
+				setHeader(SERVER_TIMING, timing.serverTiming());
+			added = true;
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.employee.employee_management_system.timing;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+// The latest slow requests, newest first
+public class SlowRequestLog {
+
+	public record Entry(Instant time, String method, String uri, int status, double totalMillis,
+			Map<String, Double> stageMillis, int statements, double statementMillis, boolean overStatementBudget) {
+	}
+
+	private final int size;
+	private final Deque<Entry> entries;
+
+	public SlowRequestLog(int size) {
+		this.size = size;
+		this.entries = new ArrayDeque<>(size);
+	}
+
+	// Drops the oldest entry once the log is full
+	public synchronized void add(Entry entry) {
+		if (entries.size() == size)
+			entries.removeLast();
+		entries.addFirst(entry);
+	}
+
+	public synchronized List<Entry> getEntries() {
+		return new ArrayList<>(entries);
+	}
+}
@@ -0,0 +1,80 @@
+package com.employee.employee_management_system.timing;
+
+import com.employee.employee_management_system.exception.StatementBudgetExceededException;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+// Counts and times the prepared statements Hibernate runs, for StatementStatistics and the current RequestTiming
+public class StatementCountingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+	private final StatementStatistics statistics;
+	private final boolean failOverBudget;
+
+	public StatementCountingDataSource(DataSource dataSource, StatementStatistics statistics, boolean failOverBudget) {
+		super(dataSource);
+		this.statistics = statistics;
+		this.failOverBudget = failOverBudget;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		Connection connection = super.getConnection();
+		return proxy(Connection.class, connection, (method, args) -> {
+			Object result = invoke(connection, method, args);
+			if (method.getName().equals("prepareStatement"))
+				return counting((PreparedStatement) result, StatementStatistics.shape((String) args[0]));
+			return result;
+		});
+	}
+
+	// Closes the connection pool on shutdown
+	@Override
+	public void close() throws Exception {
+		if (obtainTargetDataSource() instanceof AutoCloseable pool)
+			pool.close();
+	}
+
+	private PreparedStatement counting(PreparedStatement statement, String shape) {
+		return proxy(PreparedStatement.class, statement, (method, args) -> {
+			if (!method.getName().startsWith("execute"))
+				return invoke(statement, method, args);
+			RequestTiming timing = RequestTiming.current();
+			if (timing != null && !timing.statementStarting() && failOverBudget)
+				throw new StatementBudgetExceededException(timing.getStatementBudget(), shape);
+			long start = System.nanoTime();
+			try {
+				return invoke(statement, method, args);
+			} finally {
+				long nanos = System.nanoTime() - start;
+				statistics.record(shape, nanos);
+				if (timing != null)
+					timing.statementExecuted(nanos);
+			}
+		});
+	}
+
+	private interface Handler {
+		Object handle(Method method, Object[] args) throws Throwable;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, T target, Handler handler) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> handler.handle(method, args));
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getTargetException();
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.employee.employee_management_system.timing;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+// Count and time of every SQL statement since startup or the last reset
+public class StatementStatistics {
+
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	public record QueryShape(String sql, long count, double totalMillis, double maxMillis) {
+
+		QueryShape plus(QueryShape other) {
+			return new QueryShape(sql, count + other.count, totalMillis + other.totalMillis,
+					Math.max(maxMillis, other.maxMillis));
+		}
+	}
+
+	// Hibernate binds every value as a parameter, so there is one shape per query in the repositories
+	private final Map<String, QueryShape> shapes = new ConcurrentHashMap<>();
+
+	public static String shape(String sql) {
+		return WHITESPACE.matcher(sql.strip()).replaceAll(" ");
+	}
+
+	public void record(String shape, long nanos) {
+		double millis = nanos / 1_000_000.0;
+		shapes.merge(shape, new QueryShape(shape, 1, millis, millis), QueryShape::plus);
+	}
+
+	// Highest total time first
+	public List<QueryShape> getQueries() {
+		return shapes.values().stream()
+				.sorted(Comparator.comparingDouble(QueryShape::totalMillis).reversed())
+				.toList();
+	}
+
+	public void reset() {
+		shapes.clear();
+	}
+}
@@ -0,0 +1,34 @@
+package com.employee.employee_management_system.timing;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "employees.statements.enabled", havingValue = "true", matchIfMissing = true)
+public class StatementStatisticsConfig {
+
+	@Bean
+	public static StatementStatistics statementStatistics() {
+		return new StatementStatistics();
+	}
+
+	// Wraps the DataSource so every statement goes through StatementCountingDataSource
+	@Bean
+	public static BeanPostProcessor statementCounter(ObjectProvider<StatementStatistics> statistics,
+			@Value("${employees.statements.fail-over-budget:false}") boolean failOverBudget) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource))
+					return new StatementCountingDataSource(dataSource, statistics.getObject(), failOverBudget);
+				return bean;
+			}
+		};
+	}
+}
@@ -0,0 +1,83 @@
+package com.employee.employee_management_system.timing;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.employee.employee_management_system.model.Employee;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Every request counts as slow, so all of them end up in the log
+@SpringBootTest(properties = "employees.timing.slow-threshold=0ms")
+@AutoConfigureMockMvc
+@ActiveProfiles(profiles = "test")
+@Tag("integration")
+public class RequestTimingIT {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	@WithMockUser(username = "admin", roles = { "USER", "ADMIN" })
+	void testServerTimingHeader_AndSlowRequests() throws Exception {
+		mockMvc.perform(post("/api/employees").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new Employee("Rana", "Timing"))))
+				.andExpect(status().isCreated())
+				.andExpect(header().string(RequestTimingFilter.SERVER_TIMING, allOf(
+						containsString("filters;dur="), containsString("validation;dur="),
+						containsString("controller;dur="), containsString("service;dur="),
+						containsString("repository;dur="), containsString("total;dur="))));
+
+		mockMvc.perform(get("/api/timings/slow")).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].method", is("POST")))
+				.andExpect(jsonPath("$[0].uri", is("/api/employees")))
+				.andExpect(jsonPath("$[0].status", is(201)))
+				.andExpect(jsonPath("$[0].stageMillis.repository", greaterThan(0.0)))
+				.andExpect(jsonPath("$[0].stageMillis.serialization").exists());
+	}
+
+	@Test
+	@WithMockUser(username = "admin", roles = { "USER", "ADMIN" })
+	void testStatementsCounted_AndQueryStatistics() throws Exception {
+		String created = mockMvc.perform(post("/api/employees").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new Employee("Omar", "Queries"))))
+				.andExpect(status().isCreated()).andReturn().getResponse().getContentAsString();
+		long id = objectMapper.readValue(created, Employee.class).getId();
+
+		// Within its budget of 2, which the test profile enforces
+		mockMvc.perform(put("/api/employees/" + id).contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new Employee("Omar", "Statements"))))
+				.andExpect(status().isOk())
+				.andExpect(header().string(RequestTimingFilter.SERVER_TIMING, containsString(";desc=\"2 statements\"")));
+
+		mockMvc.perform(get("/api/timings/slow")).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].method", is("PUT")))
+				.andExpect(jsonPath("$[0].statements", is(2)))
+				.andExpect(jsonPath("$[0].overStatementBudget", is(false)));
+		mockMvc.perform(get("/api/timings/queries")).andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].sql", hasItem(startsWith("update employees set "))));
+
+		mockMvc.perform(delete("/api/timings/queries")).andExpect(status().isNoContent());
+		mockMvc.perform(get("/api/timings/queries")).andExpect(jsonPath("$", empty()));
+	}
+
+	@Test
+	void testUnauthenticatedRequest_TimedToo() throws Exception {
+		mockMvc.perform(get("/api/employees")).andExpect(status().isUnauthorized())
+				.andExpect(header().string(RequestTimingFilter.SERVER_TIMING, startsWith("filters;dur=")));
+		mockMvc.perform(get("/api/timings/slow")).andExpect(status().isUnauthorized());
+	}
+}
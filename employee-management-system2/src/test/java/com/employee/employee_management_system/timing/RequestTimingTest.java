@@ -0,0 +1,69 @@
+package com.employee.employee_management_system.timing;
+
+import com.employee.employee_management_system.timing.RequestTiming.Stage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTimingTest {
+
+	@AfterEach
+	void tearDown() {
+		RequestTiming.clear();
+	}
+
+	@Test
+	void testNestedStages() throws InterruptedException {
+		// Arrange: A controller calling a service calling a repository
+		RequestTiming timing = RequestTiming.start();
+		assertSame(timing, RequestTiming.current());
+
+		// Act
+		timing.enter(Stage.DISPATCH);
+		Stage dispatch = timing.enter(Stage.CONTROLLER);
+		Stage controller = timing.enter(Stage.SERVICE);
+		Stage service = timing.enter(Stage.REPOSITORY);
+		Thread.sleep(30);
+		timing.exit(service);
+		timing.exit(controller);
+		timing.exit(dispatch);
+		timing.enter(Stage.SERIALIZATION);
+		timing.stop();
+
+		// Assert: The repository time isn't counted for the service as well, and the stages add up to the total
+		assertTrue(timing.getNanos(Stage.REPOSITORY) >= TimeUnit.MILLISECONDS.toNanos(30));
+		assertTrue(timing.getNanos(Stage.SERVICE) < TimeUnit.MILLISECONDS.toNanos(30));
+		long sum = 0;
+		for (Stage stage : Stage.values())
+			sum += timing.getNanos(stage);
+		assertEquals(timing.getTotalNanos(), sum);
+		assertTrue(timing.serverTiming().matches("filters;dur=\\d+\\.\\d+, .*repository;dur=\\d+\\.\\d+, .*total;dur=\\d+\\.\\d+"),
+				timing.serverTiming());
+	}
+
+	@Test
+	void testSlowRequestLog() {
+		// Arrange
+		SlowRequestLog log = new SlowRequestLog(2);
+
+		// Act
+		log.add(entry("/api/employees/1", 200));
+		log.add(entry("/api/employees/2", 200));
+		log.add(entry("/api/employees/3", 404));
+
+		// Assert: Only the latest two are kept, newest first
+		List<SlowRequestLog.Entry> entries = log.getEntries();
+		assertEquals(List.of("/api/employees/3", "/api/employees/2"), entries.stream().map(SlowRequestLog.Entry::uri).toList());
+		assertEquals(404, entries.get(0).status());
+	}
+
+	private static SlowRequestLog.Entry entry(String uri, int status) {
+		return new SlowRequestLog.Entry(Instant.now(), "GET", uri, status, 1.0, Map.of(), 0, 0.0, false);
+	}
+}
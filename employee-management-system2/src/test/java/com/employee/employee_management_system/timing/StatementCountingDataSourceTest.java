@@ -0,0 +1,103 @@
+package com.employee.employee_management_system.timing;
+
+import com.employee.employee_management_system.exception.StatementBudgetExceededException;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCountingDataSourceTest {
+
+	private StatementStatistics statistics;
+	private DataSource h2;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		statistics = new StatementStatistics();
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:statements;DB_CLOSE_DELAY=-1");
+		h2 = dataSource;
+		try (Connection connection = h2.getConnection(); Statement statement = connection.createStatement()) {
+			statement.execute("create table if not exists employees (id bigint primary key)");
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		RequestTiming.clear();
+	}
+
+	private static void selectById(DataSource dataSource, long id) {
+		try (Connection connection = dataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement("select id\n  from employees where id = ?")) {
+			statement.setLong(1, id);
+			statement.executeQuery().close();
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Test
+	void testStatementsCounted_AndBudgetEnforcedInTestMode() {
+		// Arrange: A request allowed two statements
+		RequestTiming timing = RequestTiming.start();
+		timing.setStatementBudget(2);
+		DataSource strict = new StatementCountingDataSource(h2, statistics, true);
+
+		// Act
+		selectById(strict, 1);
+		selectById(strict, 2);
+		StatementBudgetExceededException exception = assertThrows(StatementBudgetExceededException.class,
+				() -> selectById(strict, 3));
+
+		// Assert: The third statement never ran
+		assertEquals("Statement budget of 2 exceeded by select id from employees where id = ?", exception.getMessage());
+		assertEquals(3, timing.getStatements());
+		List<StatementStatistics.QueryShape> queries = statistics.getQueries();
+		assertEquals(1, queries.size());
+		assertEquals("select id from employees where id = ?", queries.get(0).sql());
+		assertEquals(2, queries.get(0).count());
+
+		statistics.reset();
+		assertTrue(statistics.getQueries().isEmpty());
+	}
+
+	@Test
+	void testOverBudget_KeptInSlowRequestLog() throws Exception {
+		// Arrange
+		SlowRequestLog log = new SlowRequestLog(10);
+		DataSource dataSource = new StatementCountingDataSource(h2, statistics, false);
+		RequestTimingFilter filter = new RequestTimingFilter(log, Duration.ofHours(1));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		// Act: One query per employee instead of one for all of them
+		filter.doFilter(new MockHttpServletRequest("GET", "/api/employees"), response, (req, res) -> {
+			RequestTiming.current().setStatementBudget(1);
+			for (long id = 1; id <= 5; id++)
+				selectById(dataSource, id);
+		});
+
+		// Assert
+		assertTrue(response.getHeader(RequestTimingFilter.SERVER_TIMING).contains(";desc=\"5 statements\""));
+		SlowRequestLog.Entry entry = log.getEntries().get(0);
+		assertEquals(5, entry.statements());
+		assertTrue(entry.overStatementBudget());
+
+		// Fast requests within their budget aren't kept
+		filter.doFilter(new MockHttpServletRequest("GET", "/api/employees/1"), new MockHttpServletResponse(),
+				(req, res) -> selectById(dataSource, 1));
+		assertEquals(1, log.getEntries().size());
+	}
+}
@@ -0,0 +1,60 @@
+#!/bin/sh
+# Time from launching the application until its first successful GET /api/employees, for each startup configuration.
+# Build both jars first with: ./mvnw -Pcds package -DskipTests
+# PostgreSQL has to be running as configured in application.properties.
+#
+# Usage: ./startup-benchmark.sh [runs per configuration, default 3]
+set -eu
+
+cd "$(dirname "$0")"
+runs=${1:-3}
+port=${PORT:-18081}
+java=${JAVA_HOME:+$JAVA_HOME/bin/}java
+jar=target/employee-management-system-0.0.1-SNAPSHOT.jar
+cds=target/cds
+
+for file in "$jar" "$cds/application.jsa"; do
+    if [ ! -f "$file" ]; then
+        echo "$file is missing, build it with: ./mvnw -Pcds package -DskipTests" >&2
+        exit 1
+    fi
+done
+
+# Milliseconds until the URL answers 200 to the in-memory user, or nothing if the application exits first
+first_request() {
+    start=$(date +%s%N)
+    "$java" "$@" --server.port="$port" > target/startup-benchmark.log 2>&1 &
+    pid=$!
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' -u user:test123 "http://localhost:$port/api/employees")" = 200 ]; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "failed, see target/startup-benchmark.log" >&2
+            return 1
+        fi
+        sleep 0.05
+    done
+    end=$(date +%s%N)
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo $(((end - start) / 1000000))
+}
+
+measure() {
+    name=$1
+    shift
+    times=""
+    for run in $(seq "$runs"); do
+        times="$times $(first_request "$@")"
+    done
+    best=$(echo $times | tr ' ' '\n' | sort -n | head -1)
+    printf '%-32s best %6s ms   runs:%s\n' "$name" "$best" "$times"
+}
+
+measure "baseline" -jar "$jar" --spring.data.jpa.repositories.bootstrap-mode=default
+measure "deferred JPA" -jar "$jar"
+measure "deferred JPA + lazy" -jar "$jar" --spring.main.lazy-initialization=true
+measure "CDS" -XX:SharedArchiveFile="$cds/application.jsa" -Xlog:cds=error \
+    -jar "$cds/employee-management-system-0.0.1-SNAPSHOT.jar" --spring.data.jpa.repositories.bootstrap-mode=default
+measure "CDS + deferred JPA" -XX:SharedArchiveFile="$cds/application.jsa" -Xlog:cds=error \
+    -jar "$cds/employee-management-system-0.0.1-SNAPSHOT.jar"
+measure "CDS + deferred JPA + lazy" -XX:SharedArchiveFile="$cds/application.jsa" -Xlog:cds=error \
+    -jar "$cds/employee-management-system-0.0.1-SNAPSHOT.jar" --spring.main.lazy-initialization=true